@@ -0,0 +1,115 @@
+package com.somdiproy.smartcodereview.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Filtering a whole repository tree with the compiled PathFilter against the previous
+ * shouldProcessFile loop, which turned every pattern into a regex and called String.matches per path.
+ * Run with: mvn -Pjmh test-compile exec:exec
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PathFilterBenchmark {
+
+    // analysis.excluded-patterns and analysis.supported-extensions from application.properties
+    private static final List<String> EXCLUDED_PATTERNS = List.of(
+            "**/test/**", "**/tests/**", "**/node_modules/**", "**/__pycache__/**", "**/target/**",
+            "**/build/**", "**/dist/**", "**/.git/**", "**/vendor/**", "**/coverage/**");
+    private static final List<String> SUPPORTED_EXTENSIONS = List.of(
+            ".java", ".py", ".js", ".ts", ".cs", ".go", ".rb", ".php", ".cpp", ".c", ".kt", ".scala", ".swift");
+
+    private static final String[] DIRECTORIES = {
+            "src", "main", "java", "com", "app", "service", "util", "test", "node_modules", "lib", "build",
+            "docs", "api", "web", "vendor", "internal"};
+    private static final String[] EXTENSIONS = {".java", ".py", ".js", ".ts", ".md", ".json", ".png", ".go"};
+
+    @Param({"1000", "20000"})
+    private int treeSize;
+
+    private List<String> paths;
+    private PathFilter pathFilter;
+    private PathFilter overriddenFilter;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        paths = new ArrayList<>(treeSize);
+        for (int i = 0; i < treeSize; i++) {
+            StringBuilder path = new StringBuilder();
+            int depth = 1 + random.nextInt(7);
+            for (int d = 0; d < depth; d++) {
+                path.append(DIRECTORIES[random.nextInt(DIRECTORIES.length)]).append('/');
+            }
+            path.append("File").append(i).append(EXTENSIONS[random.nextInt(EXTENSIONS.length)]);
+            paths.add(path.toString());
+        }
+        pathFilter = PathFilter.compile(EXCLUDED_PATTERNS, SUPPORTED_EXTENSIONS);
+        overriddenFilter = pathFilter.withOverrides(List.of("docs/*.js", "**/generated/**", "!lib/keep/*.java"));
+    }
+
+    @Benchmark
+    public int legacyRegexPerPath() {
+        int accepted = 0;
+        for (String path : paths) {
+            if (legacyAccepts(path)) {
+                accepted++;
+            }
+        }
+        return accepted;
+    }
+
+    @Benchmark
+    public int compiledFilter() {
+        int accepted = 0;
+        for (String path : paths) {
+            if (pathFilter.accepts(path)) {
+                accepted++;
+            }
+        }
+        return accepted;
+    }
+
+    @Benchmark
+    public int compiledFilterWithOverrides() {
+        int accepted = 0;
+        for (String path : paths) {
+            if (overriddenFilter.accepts(path)) {
+                accepted++;
+            }
+        }
+        return accepted;
+    }
+
+    /**
+     * The exclusion and extension checks of the former GitHubService.shouldProcessFile
+     */
+    private static boolean legacyAccepts(String path) {
+        for (String pattern : EXCLUDED_PATTERNS) {
+            String regex = pattern.replace("**", ".*").replace("*", "[^/]*");
+            if (path.matches(regex)) {
+                return false;
+            }
+        }
+        int lastDot = path.lastIndexOf('.');
+        return lastDot > 0 && SUPPORTED_EXTENSIONS.contains(path.substring(lastDot));
+    }
+}
@@ -4,16 +4,17 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
 import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
 import software.amazon.awssdk.auth.credentials.ProfileCredentialsProvider;
 import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
-import software.amazon.awssdk.core.retry.RetryPolicy;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.bedrockruntime.BedrockRuntimeClient;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
-import software.amazon.awssdk.services.lambda.LambdaClient;
+import software.amazon.awssdk.services.lambda.LambdaAsyncClient;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.ses.SesClient;
 import software.amazon.awssdk.services.sqs.SqsClient;
@@ -42,6 +43,9 @@ public class AWSConfig {
 
     @Value("${aws.profile:default}")
     private String awsProfile;
+
+    @Value("${aws.lambda.async-client.max-concurrency:200}")
+    private int lambdaAsyncMaxConcurrency;
     
     @Autowired
     private Environment environment;
@@ -103,21 +107,26 @@ public class AWSConfig {
                 .build();
     }
 
-    
+
     /**
-     * Lambda client configuration
+     * Non-blocking Lambda client on Netty; in-flight invocations share a few event-loop threads.
+     * The lambda-sim profile replaces it with SimulatedLambdaAsyncClient. SDK retries are off:
+     * LambdaInvokerService retries itself so throttles reach the concurrency limit and breaker.
      */
-    @Bean
-    public LambdaClient lambdaClient(AwsCredentialsProvider credentialsProvider) {
-        return LambdaClient.builder()
+    @Bean(destroyMethod = "close")
+    @Profile("!lambda-sim")
+    public LambdaAsyncClient lambdaAsyncClient(AwsCredentialsProvider credentialsProvider) {
+        return LambdaAsyncClient.builder()
                 .region(Region.of(awsRegion))
                 .credentialsProvider(credentialsProvider)
+                .httpClientBuilder(NettyNioAsyncHttpClient.builder()
+                    .maxConcurrency(lambdaAsyncMaxConcurrency)
+                    .readTimeout(Duration.ofMinutes(30))
+                    .connectionAcquisitionTimeout(Duration.ofMinutes(1)))
                 .overrideConfiguration(ClientOverrideConfiguration.builder()
                     .apiCallTimeout(Duration.ofMinutes(30))
                     .apiCallAttemptTimeout(Duration.ofMinutes(30))
-                    .retryPolicy(RetryPolicy.builder()
-                        .numRetries(3)
-                        .build())
+                    .retryStrategy(retry -> retry.maxAttempts(1))
                     .build())
                 .build();
     }
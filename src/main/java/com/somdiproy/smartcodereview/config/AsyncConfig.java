@@ -1,5 +1,6 @@
 package com.somdiproy.smartcodereview.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
@@ -14,6 +15,9 @@ import java.util.concurrent.ThreadPoolExecutor;
 @EnableAsync
 public class AsyncConfig implements WebMvcConfigurer {
 
+    @Value("${aws.lambda.batch.detection.parallelism:3}")
+    private int detectionParallelism;
+
     @Bean(name = "lambdaTaskExecutor")
     public ThreadPoolTaskExecutor lambdaTaskExecutor() {
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
@@ -28,6 +32,21 @@ public class AsyncConfig implements WebMvcConfigurer {
         return executor;
     }
 
+    /**
+     * Builds Lambda payloads and parses responses for async invocations, keeping that work off the SDK's threads
+     */
+    @Bean(name = "lambdaBatchExecutor")
+    public ThreadPoolTaskExecutor lambdaBatchExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(Math.max(1, detectionParallelism));
+        executor.setMaxPoolSize(Math.max(1, detectionParallelism));
+        executor.setThreadNamePrefix("LambdaBatch-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(600); // 10 minutes
+        executor.initialize();
+        return executor;
+    }
+
     @Override
     public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
         configurer.setDefaultTimeout(1800000); // 30 minutes in milliseconds
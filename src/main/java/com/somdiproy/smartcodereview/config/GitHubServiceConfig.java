@@ -1,5 +1,13 @@
 package com.somdiproy.smartcodereview.config;
 
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
@@ -25,6 +33,18 @@ public class GitHubServiceConfig {
     @Value("${github.analysis.timeout-per-file:10000}")
     private int timeoutPerFile;
     
+    @Value("${github.timeout:30000}")
+    private int timeout;
+    
+    @Value("${github.http.max-connections:50}")
+    private int maxConnections;
+    
+    @Value("${github.http.max-connections-per-route:20}")
+    private int maxConnectionsPerRoute;
+    
+    @Value("${github.http.idle-timeout-seconds:60}")
+    private int idleTimeoutSeconds;
+    
     /**
      * Cache manager for GitHub API responses
      */
@@ -56,6 +76,32 @@ public class GitHubServiceConfig {
         return executor;
     }
     
+    /**
+     * Pooled HTTP client shared by all GitHub API clients
+     */
+    @Bean(name = "githubHttpClient", destroyMethod = "close")
+    public CloseableHttpClient githubHttpClient() {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnectionsPerRoute)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(timeout))
+                        .setSocketTimeout(Timeout.ofMilliseconds(timeout))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(5))
+                        .build())
+                .build();
+        
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setResponseTimeout(Timeout.ofMilliseconds(timeout))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofSeconds(idleTimeoutSeconds))
+                .disableCookieManagement()
+                .build();
+    }
+    
     /**
      * Configuration properties for GitHub service
      */
@@ -0,0 +1,29 @@
+package com.somdiproy.smartcodereview.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.somdiproy.smartcodereview.util.FileContent;
+
+/**
+ * One source file sent to the screening stage.
+ * file and filePath repeat path for functions that still read the old names and are
+ * left out of the payload when legacy aliases are turned off.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record LambdaFileInput(
+        String path,
+        String name,
+        FileContent content,
+        long size,
+        String sha,
+        String language,
+        String mimeType,
+        String encoding,
+        String file,
+        String filePath) {
+
+    public static LambdaFileInput of(String path, String name, FileContent content, long size, String sha,
+                                     String language, String mimeType, boolean legacyAliases) {
+        return new LambdaFileInput(path, name, content, size, sha, language, mimeType, "UTF-8",
+                legacyAliases ? path : null, legacyAliases ? path : null);
+    }
+}
@@ -0,0 +1,14 @@
+package com.somdiproy.smartcodereview.dto;
+
+import java.util.Map;
+
+/**
+ * A typed Lambda request payload
+ */
+public interface LambdaRequest {
+
+    /**
+     * Small scalar fields a function needs before reading the full payload, e.g. when it was offloaded
+     */
+    Map<String, Object> routingFields();
+}
@@ -0,0 +1,54 @@
+package com.somdiproy.smartcodereview.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Request for the screening and detection functions.
+ * Screening sends LambdaFileInput items; detection sends the screened files back as returned.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record StageRequest(
+        String sessionId,
+        String analysisId,
+        String repository,
+        String branch,
+        String stage,
+        int scanNumber,
+        List<?> files,
+        BatchInfo batchInfo,
+        long timestamp) implements LambdaRequest {
+
+    public static StageRequest of(String sessionId, String analysisId, String repository, String branch,
+                                  String stage, int scanNumber, List<?> files) {
+        return new StageRequest(sessionId, analysisId, repository, branch, stage, scanNumber, files, null,
+                System.currentTimeMillis());
+    }
+
+    public StageRequest withBatch(int batchNumber, int totalBatches) {
+        return new StageRequest(sessionId, analysisId, repository, branch, stage, scanNumber, files,
+                new BatchInfo(batchNumber, totalBatches, files.size()), timestamp);
+    }
+
+    @Override
+    public Map<String, Object> routingFields() {
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("sessionId", sessionId);
+        fields.put("analysisId", analysisId);
+        fields.put("repository", repository);
+        fields.put("branch", branch);
+        fields.put("stage", stage);
+        fields.put("scanNumber", scanNumber);
+        fields.put("timestamp", timestamp);
+        if (batchInfo != null) {
+            fields.put("batchInfo", batchInfo);
+        }
+        return fields;
+    }
+
+    public record BatchInfo(int batchNumber, int totalBatches, int batchSize) {
+    }
+}
@@ -0,0 +1,27 @@
+package com.somdiproy.smartcodereview.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Response from the screening and detection functions. Only the fields this service
+ * reads are bound; anything else in the response is skipped while parsing.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record StageResponse(
+        String status,
+        List<Map<String, Object>> files,
+        List<Map<String, Object>> issues,
+        Object errors,
+        String message) {
+
+    public boolean isSuccess() {
+        return status == null || "success".equals(status);
+    }
+
+    public boolean isError() {
+        return "error".equals(status);
+    }
+}
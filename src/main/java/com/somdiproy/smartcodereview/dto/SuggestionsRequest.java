@@ -0,0 +1,135 @@
+package com.somdiproy.smartcodereview.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Request for the suggestions function. Unset tuning fields are omitted so the
+ * function applies its own defaults.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record SuggestionsRequest(
+        String sessionId,
+        String analysisId,
+        String repository,
+        String branch,
+        List<Map<String, Object>> issues,
+        int scanNumber,
+        String strategy,
+        String modelId,
+        String processingMode,
+        String issueSeverity,
+        Boolean rateLimitMode,
+        Integer maxConcurrentRequests,
+        Integer batchSize,
+        Integer delayBetweenRequests,
+        Integer maxRetries,
+        Integer exponentialBackoffMaxDelay,
+        Integer timeoutBuffer,
+        long timestamp) implements LambdaRequest {
+
+    @Override
+    public Map<String, Object> routingFields() {
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("sessionId", sessionId);
+        fields.put("analysisId", analysisId);
+        fields.put("repository", repository);
+        fields.put("branch", branch);
+        fields.put("scanNumber", scanNumber);
+        fields.put("timestamp", timestamp);
+        if (processingMode != null) {
+            fields.put("processingMode", processingMode);
+        }
+        return fields;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        private String sessionId;
+        private String analysisId;
+        private String repository;
+        private String branch;
+        private List<Map<String, Object>> issues;
+        private int scanNumber;
+        private String strategy;
+        private String modelId;
+        private String processingMode;
+        private String issueSeverity;
+        private Boolean rateLimitMode;
+        private Integer maxConcurrentRequests;
+        private Integer batchSize;
+        private Integer delayBetweenRequests;
+        private Integer maxRetries;
+        private Integer exponentialBackoffMaxDelay;
+        private Integer timeoutBuffer;
+
+        public Builder analysis(String sessionId, String analysisId, String repository, String branch, int scanNumber) {
+            this.sessionId = sessionId;
+            this.analysisId = analysisId;
+            this.repository = repository;
+            this.branch = branch;
+            this.scanNumber = scanNumber;
+            return this;
+        }
+
+        public Builder issues(List<Map<String, Object>> issues) {
+            this.issues = issues;
+            return this;
+        }
+
+        public Builder strategy(String strategy) {
+            this.strategy = strategy;
+            return this;
+        }
+
+        public Builder modelId(String modelId) {
+            this.modelId = modelId;
+            return this;
+        }
+
+        public Builder processingMode(String processingMode) {
+            this.processingMode = processingMode;
+            return this;
+        }
+
+        public Builder issueSeverity(String issueSeverity) {
+            this.issueSeverity = issueSeverity;
+            return this;
+        }
+
+        /**
+         * Ask the function to pace its Nova calls
+         */
+        public Builder rateLimited(int delayBetweenRequests, int maxRetries) {
+            this.rateLimitMode = true;
+            this.maxConcurrentRequests = 1;
+            this.batchSize = 1;
+            this.delayBetweenRequests = delayBetweenRequests;
+            this.maxRetries = maxRetries;
+            return this;
+        }
+
+        public Builder exponentialBackoffMaxDelay(int exponentialBackoffMaxDelay) {
+            this.exponentialBackoffMaxDelay = exponentialBackoffMaxDelay;
+            return this;
+        }
+
+        public Builder timeoutBuffer(int timeoutBuffer) {
+            this.timeoutBuffer = timeoutBuffer;
+            return this;
+        }
+
+        public SuggestionsRequest build() {
+            return new SuggestionsRequest(sessionId, analysisId, repository, branch, issues, scanNumber, strategy,
+                    modelId, processingMode, issueSeverity, rateLimitMode, maxConcurrentRequests, batchSize,
+                    delayBetweenRequests, maxRetries, exponentialBackoffMaxDelay, timeoutBuffer,
+                    System.currentTimeMillis());
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.somdiproy.smartcodereview.model;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Analysis model (for tracking in-progress analyses)
@@ -21,6 +22,9 @@ public class Analysis {
     private List<String> stages = new ArrayList<>();
     private String error;
     private Integer scanNumber;
+    private String branchSHA;
+    // Path -> blob SHA of the files detected or screened out, unchanged carried-forward files included
+    private Map<String, String> detectedBlobShas;
     
     
 
@@ -150,6 +154,22 @@ public class Analysis {
         this.scanNumber = scanNumber;
     }
     
+    public String getBranchSHA() {
+        return branchSHA;
+    }
+    
+    public void setBranchSHA(String branchSHA) {
+        this.branchSHA = branchSHA;
+    }
+    
+    public Map<String, String> getDetectedBlobShas() {
+        return detectedBlobShas;
+    }
+    
+    public void setDetectedBlobShas(Map<String, String> detectedBlobShas) {
+        this.detectedBlobShas = detectedBlobShas;
+    }
+    
     // Builder pattern
     public static AnalysisBuilder builder() {
         return new AnalysisBuilder();
@@ -228,6 +248,16 @@ public class Analysis {
             return this;
         }
         
+        public AnalysisBuilder branchSHA(String branchSHA) {
+            analysis.setBranchSHA(branchSHA);
+            return this;
+        }
+        
+        public AnalysisBuilder detectedBlobShas(Map<String, String> detectedBlobShas) {
+            analysis.setDetectedBlobShas(detectedBlobShas);
+            return this;
+        }
+        
         public Analysis build() {
             return analysis;
         }
@@ -17,6 +17,7 @@ public class AnalysisResult {
     private String repository;
     private String branch;
     private String branchSHA;
+    private Map<String, String> detectedBlobShas;
     private Long startedAt;
     private Long completedAt;
     private Long processingTimeMs;
@@ -93,6 +94,19 @@ public class AnalysisResult {
         this.branchSHA = branchSHA;
     }
     
+    /**
+     * Path to blob SHA of every file whose detection completed in this analysis or that screening
+     * passed over, including unchanged files carried forward from the previous one. Incremental
+     * rescans diff against it.
+     */
+    public Map<String, String> getDetectedBlobShas() {
+        return detectedBlobShas;
+    }
+    
+    public void setDetectedBlobShas(Map<String, String> detectedBlobShas) {
+        this.detectedBlobShas = detectedBlobShas;
+    }
+    
     public Long getStartedAt() {
         return startedAt;
     }
@@ -241,6 +255,11 @@ public class AnalysisResult {
             return this;
         }
         
+        public AnalysisResultBuilder detectedBlobShas(Map<String, String> detectedBlobShas) {
+            result.setDetectedBlobShas(detectedBlobShas);
+            return this;
+        }
+        
         public AnalysisResultBuilder startedAt(Long startedAt) {
             result.setStartedAt(startedAt);
             return this;
@@ -15,6 +15,7 @@ import software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest;
 
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -114,4 +115,19 @@ public class AnalysisRepository {
                                   analysis.getStartedAt() <= endTime)
                 .collect(Collectors.toList());
     }
-}
\ No newline at end of file
+    
+    /**
+     * Find the most recent completed analysis of a repository branch that recorded its commit SHA
+     */
+    public Optional<AnalysisResult> findLatestCompletedByRepositoryAndBranch(String repository, String branch) {
+        // Same scan-and-filter approach as above until a repository GSI exists
+        return analysisTable.scan()
+                .items()
+                .stream()
+                .filter(analysis -> repository.equals(analysis.getRepository()) && branch.equals(analysis.getBranch()))
+                .filter(analysis -> "completed".equals(analysis.getStatus()) && analysis.getBranchSHA() != null)
+                // Analyses that did not record their detected files cannot serve as a baseline
+                .filter(analysis -> analysis.getDetectedBlobShas() != null)
+                .max(Comparator.comparing(analysis -> analysis.getCompletedAt() != null ? analysis.getCompletedAt() : 0L));
+    }
+}
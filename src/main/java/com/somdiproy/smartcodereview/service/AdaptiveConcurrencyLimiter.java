@@ -0,0 +1,233 @@
+package com.somdiproy.smartcodereview.service;
+
+import com.somdiproy.smartcodereview.util.LambdaStages;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * AIMD limit on in-flight Lambda calls, per operation, in the style of TCP congestion control.
+ * Every successful call raises the limit by additive-increase / limit, so a full window of
+ * successes adds additive-increase; a throttle or function error multiplies it by backoff-ratio,
+ * at most once per window so one burst of failures does not collapse it to the floor.
+ * Callers wait for a permit asynchronously instead of holding a thread, and waiters are
+ * granted permits in LambdaWorkScheduler's fair-share order rather than first come first served.
+ */
+@Component
+public class AdaptiveConcurrencyLimiter {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(AdaptiveConcurrencyLimiter.class);
+
+    @Value("${aws.lambda.concurrency.adaptive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${aws.lambda.concurrency.initial-limit:2}")
+    private double initialLimit;
+
+    @Value("${aws.lambda.concurrency.min-limit:1}")
+    private double minLimit;
+
+    @Value("${aws.lambda.concurrency.max-limit:16}")
+    private double maxLimit;
+
+    @Value("${aws.lambda.concurrency.additive-increase:1}")
+    private double additiveIncrease;
+
+    @Value("${aws.lambda.concurrency.backoff-ratio:0.5}")
+    private double backoffRatio;
+
+    private final MeterRegistry meterRegistry;
+    private final LambdaWorkScheduler workScheduler;
+    private final Map<String, Window> windows = new ConcurrentHashMap<>();
+
+    public AdaptiveConcurrencyLimiter(MeterRegistry meterRegistry, LambdaWorkScheduler workScheduler) {
+        this.meterRegistry = meterRegistry;
+        this.workScheduler = workScheduler;
+    }
+
+    /**
+     * Complete with a permit once the operation has room under its current limit and it is
+     * the analysis's turn. The permit must be settled with exactly one of onSuccess, onDropped or release.
+     */
+    public CompletableFuture<Permit> acquire(String operation, String analysisId) {
+        if (!enabled) {
+            return CompletableFuture.completedFuture(Permit.NOOP);
+        }
+        return windowFor(operation).acquire(analysisId);
+    }
+
+    /**
+     * Current limit for an operation, for logging and health endpoints
+     */
+    public double getLimit(String operation) {
+        return enabled ? windowFor(operation).limit : Double.NaN;
+    }
+
+    /**
+     * Whether calls of the operation are waiting for a permit
+     */
+    public boolean hasWaiters(String operation) {
+        if (!enabled) {
+            return false;
+        }
+        Window window = windowFor(operation);
+        synchronized (window) {
+            return !window.waiters.isEmpty();
+        }
+    }
+
+    /**
+     * Batch variants such as "detection_batch" share the base operation's window
+     */
+    private Window windowFor(String operation) {
+        return windows.computeIfAbsent(LambdaStages.stageOf(operation), Window::new);
+    }
+
+    private class Window {
+        private final String operation;
+        private final LambdaWorkScheduler.FairQueue<CompletableFuture<Permit>> waiters = workScheduler.newQueue();
+        private final Counter successes;
+        private final Counter throttles;
+        private double limit;
+        private int inFlight;
+        private long windowStart;
+        private long acquisitions;
+
+        private Window(String operation) {
+            this.operation = operation;
+            this.limit = clamp(initialLimit);
+
+            Gauge.builder("lambda.concurrency.limit", this, w -> w.limit)
+                    .tag("operation", operation)
+                    .description("Adaptive limit on in-flight calls")
+                    .register(meterRegistry);
+            Gauge.builder("lambda.concurrency.inflight", this, w -> w.inFlight)
+                    .tag("operation", operation)
+                    .register(meterRegistry);
+            Gauge.builder("lambda.concurrency.queued", this, w -> w.waiters.size())
+                    .tag("operation", operation)
+                    .register(meterRegistry);
+            successes = Counter.builder("lambda.concurrency.outcomes")
+                    .tag("operation", operation)
+                    .tag("result", "success")
+                    .register(meterRegistry);
+            throttles = Counter.builder("lambda.concurrency.outcomes")
+                    .tag("operation", operation)
+                    .tag("result", "throttled")
+                    .description("Calls that were throttled or failed and shrank the limit")
+                    .register(meterRegistry);
+        }
+
+        private CompletableFuture<Permit> acquire(String analysisId) {
+            Permit permit;
+            synchronized (this) {
+                if (inFlight >= (int) limit) {
+                    CompletableFuture<Permit> waiter = new CompletableFuture<>();
+                    waiters.add(analysisId, waiter);
+                    return waiter;
+                }
+                permit = grant();
+            }
+            return CompletableFuture.completedFuture(permit);
+        }
+
+        private Permit grant() {
+            inFlight++;
+            return new Permit(this, acquisitions++);
+        }
+
+        private void settle(long sequence, Boolean success) {
+            synchronized (this) {
+                inFlight--;
+                if (Boolean.TRUE.equals(success)) {
+                    limit = clamp(limit + additiveIncrease / limit);
+                } else if (Boolean.FALSE.equals(success) && sequence >= windowStart) {
+                    // Calls started before the last decrease already saw the old limit
+                    double previous = limit;
+                    limit = clamp(limit * backoffRatio);
+                    windowStart = acquisitions;
+                    log.info("📉 Lambda concurrency for {} cut from {} to {}", operation,
+                             String.format("%.1f", previous), String.format("%.1f", limit));
+                }
+            }
+            if (Boolean.TRUE.equals(success)) {
+                successes.increment();
+            } else if (Boolean.FALSE.equals(success)) {
+                throttles.increment();
+            }
+            drain();
+        }
+
+        private void drain() {
+            while (true) {
+                CompletableFuture<Permit> waiter;
+                Permit permit;
+                synchronized (this) {
+                    if (waiters.isEmpty() || inFlight >= (int) limit) {
+                        return;
+                    }
+                    waiter = waiters.poll();
+                    permit = grant();
+                }
+                // Complete outside the lock; a cancelled waiter hands its permit straight back
+                if (!waiter.complete(permit)) {
+                    permit.release();
+                }
+            }
+        }
+
+        private double clamp(double value) {
+            return Math.max(Math.max(1, minLimit), Math.min(maxLimit, value));
+        }
+    }
+
+    /**
+     * One in-flight call
+     */
+    public static class Permit {
+        private static final Permit NOOP = new Permit(null, 0);
+
+        private final Window window;
+        private final long sequence;
+        private final AtomicBoolean settled = new AtomicBoolean();
+
+        private Permit(Window window, long sequence) {
+            this.window = window;
+            this.sequence = sequence;
+        }
+
+        /**
+         * The call succeeded: grow the limit
+         */
+        public void onSuccess() {
+            settle(Boolean.TRUE);
+        }
+
+        /**
+         * The call was throttled or the function failed: shrink the limit
+         */
+        public void onDropped() {
+            settle(Boolean.FALSE);
+        }
+
+        /**
+         * Give the permit back without a verdict, e.g. for errors unrelated to load
+         */
+        public void release() {
+            settle(null);
+        }
+
+        private void settle(Boolean success) {
+            if (window != null && settled.compareAndSet(false, true)) {
+                window.settle(sequence, success);
+            }
+        }
+    }
+}
@@ -20,6 +20,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
@@ -47,6 +48,15 @@ public class AnalysisOrchestrator {
     
     @Autowired
     private ApplicationContext applicationContext;
+
+    @Autowired
+    private IncrementalScanService incrementalScanService;
+
+    @Autowired
+    private LambdaDeadlineBudget deadlineBudget;
+
+    @Autowired
+    private LambdaWorkScheduler workScheduler;
     
     @Autowired
     public AnalysisOrchestrator(SessionService sessionService,
@@ -88,6 +98,7 @@ public class AnalysisOrchestrator {
         
         // Store in progress map
         analysisProgress.put(analysisId, analysis);
+        workScheduler.register(analysisId, sessionId, session.getOrganization());
         
      // Start async analysis - use self-invocation proxy to ensure @Async works
         AnalysisOrchestrator self = applicationContext.getBean(AnalysisOrchestrator.class);
@@ -101,29 +112,55 @@ public class AnalysisOrchestrator {
                                        String branch, String githubToken, int scanNumber) {
         Analysis analysis = analysisProgress.get(analysisId);
         String suggestionResponse = null; // Declare at method level for proper scope
+        List<GitHubFile> files = new ArrayList<>(); // Released in finally so spilled content is freed
         
         try {
             analysis.setStatus(Analysis.AnalysisStatus.IN_PROGRESS);
+            deadlineBudget.begin(analysisId);
             
             log.info("🚀 Starting analysis {} for repository {} branch {}", analysisId, repoUrl, branch);
             
-            // Stage 1: Fetch code from GitHub
+            // Stage 1: Fetch code from GitHub, limited to changed files when a previous analysis exists
             log.info("📥 Stage 1: Fetching code from GitHub");
-            List<GitHubFile> files = gitHubService.fetchBranchCode(repoUrl, branch, githubToken);
+            String commitSha = gitHubService.resolveCommitSha(repoUrl, branch, githubToken);
+            IncrementalScanService.IncrementalScanPlan incrementalPlan =
+                    incrementalScanService.plan(repoUrl, branch, commitSha, githubToken);
+            files = gitHubService.fetchBranchCode(
+                    repoUrl,
+                    commitSha != null ? commitSha : branch,
+                    githubToken,
+                    incrementalPlan != null ? incrementalPlan.getChangedPaths() : null,
+                    incrementalPlan != null ? incrementalPlan.getModifiedPaths() : Set.of()
+            );
+            analysis.setBranchSHA(commitSha);
             analysis.setTotalFiles(files.size());
             analysis.setProgress(10);
-            log.info("✓ Fetched {} files from repository", files.size());
+            if (incrementalPlan != null) {
+                log.info("✓ Fetched {} changed files ({} unchanged since analysis {})",
+                         files.size(), incrementalPlan.getUnchangedPaths().size(), incrementalPlan.getPreviousAnalysisId());
+            } else {
+                log.info("✓ Fetched {} files from repository", files.size());
+            }
             
             // Stage 2: Screening with Nova Micro
             log.info("🔍 Stage 2: Screening files with Nova Micro");
-            List<Map<String, Object>> screenedFiles = lambdaInvokerService.invokeScreening(
-                    sessionId,
-                    analysisId,
-                    repoUrl, 
-                    branch, 
-                    files,
-                    scanNumber
-            );
+            // Files this analysis is done with: unchanged, passed over by screening, or detected.
+            // The next incremental scan diffs against this map.
+            Map<String, String> detectedBlobShas = new HashMap<>();
+            if (incrementalPlan != null) {
+                detectedBlobShas.putAll(incrementalPlan.getUnchangedBlobShas());
+            }
+            List<Map<String, Object>> screenedFiles = files.isEmpty()
+                    ? new ArrayList<>()
+                    : lambdaInvokerService.invokeScreening(
+                            sessionId,
+                            analysisId,
+                            repoUrl, 
+                            branch, 
+                            files,
+                            scanNumber,
+                            detectedBlobShas
+                    );
             analysis.setProgress(33);
             log.info("✓ Screening complete: {} valid files out of {}", screenedFiles.size(), files.size());
             
@@ -132,14 +169,22 @@ public class AnalysisOrchestrator {
             
             // Stage 3: Detection with Nova Lite
             log.info("🎯 Stage 3: Detecting issues with Nova Lite");
-            List<Map<String, Object>> issues = lambdaInvokerService.invokeDetection(
-                    sessionId,
-                    analysisId,
-                    repoUrl,
-                    branch,
-                    screenedFiles,
-                    scanNumber
-            );
+            List<Map<String, Object>> issues = screenedFiles.isEmpty()
+                    ? new ArrayList<>()
+                    : new ArrayList<>(lambdaInvokerService.invokeDetection(
+                            sessionId,
+                            analysisId,
+                            repoUrl,
+                            branch,
+                            screenedFiles,
+                            scanNumber,
+                            detectedBlobShas
+                    ));
+            if (incrementalPlan != null) {
+                issues.addAll(incrementalPlan.getCarriedIssues());
+                log.info("🔁 Carried forward {} issues from unchanged files", incrementalPlan.getCarriedIssues().size());
+            }
+            analysis.setDetectedBlobShas(detectedBlobShas);
             analysis.setIssuesFound(issues.size());
             analysis.setProgress(66);
             log.info("✓ Detection complete: {} issues found", issues.size());
@@ -221,6 +266,10 @@ public class AnalysisOrchestrator {
             } catch (Exception saveError) {
                 log.error("❌ Failed to save partial results for analysis {}: {}", analysisId, saveError.getMessage());
             }
+        } finally {
+            files.forEach(GitHubFile::release);
+            deadlineBudget.end(analysisId);
+            workScheduler.unregister(analysisId);
         }
     }
 
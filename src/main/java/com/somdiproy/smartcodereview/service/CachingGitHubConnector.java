@@ -0,0 +1,227 @@
+package com.somdiproy.smartcodereview.service;
+
+import com.somdiproy.smartcodereview.service.GitHubResponseCache.CachedResponse;
+import org.kohsuke.github.connector.GitHubConnector;
+import org.kohsuke.github.connector.GitHubConnectorRequest;
+import org.kohsuke.github.connector.GitHubConnectorResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Connector that replays ETags for cacheable GitHub GET requests. A stored
+ * response is sent back as If-None-Match; a 304 from GitHub is answered with
+ * the stored body and the fresh headers, and does not count against the rate limit.
+ */
+public class CachingGitHubConnector implements GitHubConnector {
+
+    private static final String ETAG = "ETag";
+    private static final String LAST_MODIFIED = "Last-Modified";
+    private static final String IF_NONE_MATCH = "If-None-Match";
+    private static final String IF_MODIFIED_SINCE = "If-Modified-Since";
+
+    // Describe the wire encoding of the original body, not the stored bytes
+    private static final Set<String> UNSTORED_HEADERS = Set.of(
+            "content-length", "content-encoding", "transfer-encoding", "connection", "keep-alive");
+
+    // Metadata only; file contents are already kept in the blob cache
+    private static final Set<String> CACHED_RESOURCES = Set.of(
+            "repository", "branches", "branch", "tree", "commits");
+
+    private final GitHubConnector delegate;
+    private final GitHubResponseCache cache;
+
+    public CachingGitHubConnector(GitHubConnector delegate, GitHubResponseCache cache) {
+        this.delegate = delegate;
+        this.cache = cache;
+    }
+
+    @Override
+    public GitHubConnectorResponse send(GitHubConnectorRequest request) throws IOException {
+        String resource = resourceOf(request.url());
+        if (!isCacheable(request, resource)) {
+            return delegate.send(request);
+        }
+
+        String key = cacheKey(request);
+        CachedResponse cached = cache.get(key).orElse(null);
+        GitHubConnectorResponse response = delegate.send(cached != null ? conditional(request, cached) : request);
+
+        if (cached != null && response.statusCode() == 304) {
+            Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            headers.putAll(cached.getHeaders());
+            response.allHeaders().forEach((name, values) -> {
+                if (name != null && !UNSTORED_HEADERS.contains(name.toLowerCase())) {
+                    headers.put(name, values);
+                }
+            });
+            response.close();
+            cache.record(resource, "hit", cached.getBody().length);
+            return new ReplayedResponse(request, 200, headers, cached.getBody());
+        }
+
+        if (response.statusCode() != 200 || response.header(ETAG) == null || !isJson(response)) {
+            cache.record(resource, "bypass", 0);
+            return response;
+        }
+
+        return store(request, response, key, resource);
+    }
+
+    /**
+     * Buffer and store the body when it fits, otherwise pass it through untouched
+     */
+    private GitHubConnectorResponse store(GitHubConnectorRequest request, GitHubConnectorResponse response,
+                                          String key, String resource) throws IOException {
+        long limit = cache.getMaxEntryBytes();
+        InputStream body = response.bodyStream();
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        byte[] chunk = new byte[8192];
+        int read;
+        while ((read = body.read(chunk)) != -1) {
+            buffer.write(chunk, 0, read);
+            if (buffer.size() > limit) {
+                cache.record(resource, "bypass", 0);
+                InputStream rest = new SequenceInputStream(new ByteArrayInputStream(buffer.toByteArray()), body);
+                return new PassThroughResponse(response, rest);
+            }
+        }
+        response.close();
+
+        Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        response.allHeaders().forEach((name, values) -> {
+            if (name != null && !UNSTORED_HEADERS.contains(name.toLowerCase())) {
+                headers.put(name, new ArrayList<>(values));
+            }
+        });
+        byte[] bytes = buffer.toByteArray();
+        cache.put(key, headers, bytes);
+        cache.record(resource, "miss", bytes.length);
+        return new ReplayedResponse(request, 200, headers, bytes);
+    }
+
+    private boolean isCacheable(GitHubConnectorRequest request, String resource) {
+        return "GET".equalsIgnoreCase(request.method())
+                && !request.hasBody()
+                && request.header(IF_NONE_MATCH) == null
+                && CACHED_RESOURCES.contains(resource);
+    }
+
+    private boolean isJson(GitHubConnectorResponse response) {
+        String contentType = response.header("Content-Type");
+        return contentType != null && contentType.toLowerCase().contains("json");
+    }
+
+    /**
+     * Entries are shared between tokens; GitHub only answers 304 when the
+     * caller's own view of the resource still matches the stored ETag
+     */
+    private String cacheKey(GitHubConnectorRequest request) {
+        String accept = request.header("Accept");
+        return "GET " + request.url() + " " + (accept != null ? accept : "");
+    }
+
+    private GitHubConnectorRequest conditional(GitHubConnectorRequest request, CachedResponse cached) {
+        Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        request.allHeaders().forEach((name, values) -> {
+            if (name != null) {
+                headers.put(name, values);
+            }
+        });
+        headers.put(IF_NONE_MATCH, List.of(cached.header(ETAG)));
+        if (cached.header(LAST_MODIFIED) != null) {
+            headers.put(IF_MODIFIED_SINCE, List.of(cached.header(LAST_MODIFIED)));
+        }
+        return new ConditionalRequest(request, headers);
+    }
+
+    /**
+     * Bounded label for metrics, derived from the API path
+     */
+    private static String resourceOf(URL url) {
+        String[] segments = url.getPath().replaceAll("^/+", "").split("/");
+        if (segments.length == 1 && "rate_limit".equals(segments[0])) return "rate_limit";
+        if (segments.length < 3 || !"repos".equals(segments[0])) return "other";
+        if (segments.length == 3) return "repository";
+        return switch (segments[3]) {
+            case "branches" -> segments.length == 4 ? "branches" : "branch";
+            case "git" -> segments.length > 4 && "trees".equals(segments[4]) ? "tree" : "git";
+            case "contents" -> "contents";
+            case "commits" -> "commits";
+            default -> "other";
+        };
+    }
+
+    private static class ConditionalRequest implements GitHubConnectorRequest {
+        private final GitHubConnectorRequest original;
+        private final Map<String, List<String>> headers;
+
+        private ConditionalRequest(GitHubConnectorRequest original, Map<String, List<String>> headers) {
+            this.original = original;
+            this.headers = headers;
+        }
+
+        @Override public String method() { return original.method(); }
+        @Override public Map<String, List<String>> allHeaders() { return headers; }
+        @Override public String contentType() { return original.contentType(); }
+        @Override public InputStream body() { return original.body(); }
+        @Override public URL url() { return original.url(); }
+        @Override public boolean hasBody() { return original.hasBody(); }
+
+        @Override
+        public String header(String name) {
+            List<String> values = headers.get(name);
+            return values != null && !values.isEmpty() ? String.join(",", values) : null;
+        }
+    }
+
+    private static class ReplayedResponse extends GitHubConnectorResponse {
+        private final byte[] body;
+
+        private ReplayedResponse(GitHubConnectorRequest request, int statusCode,
+                                 Map<String, List<String>> headers, byte[] body) {
+            super(request, statusCode, headers);
+            this.body = body;
+        }
+
+        @Override
+        public InputStream bodyStream() {
+            return new ByteArrayInputStream(body);
+        }
+
+        @Override
+        public void close() {
+            // Nothing held open
+        }
+    }
+
+    private static class PassThroughResponse extends GitHubConnectorResponse {
+        private final GitHubConnectorResponse original;
+        private final InputStream body;
+
+        private PassThroughResponse(GitHubConnectorResponse original, InputStream body) {
+            super(original.request(), original.statusCode(), original.allHeaders());
+            this.original = original;
+            this.body = body;
+        }
+
+        @Override
+        public InputStream bodyStream() {
+            return body;
+        }
+
+        @Override
+        public void close() throws IOException {
+            original.close();
+        }
+    }
+}
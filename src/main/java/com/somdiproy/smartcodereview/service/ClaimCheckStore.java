@@ -0,0 +1,21 @@
+package com.somdiproy.smartcodereview.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Object storage for Lambda payloads passed by reference instead of inline
+ */
+public interface ClaimCheckStore {
+
+    /**
+     * Bucket (or equivalent) name that Lambda functions are told to read from
+     */
+    String location();
+
+    void put(String key, byte[] data) throws IOException;
+
+    InputStream open(String key) throws IOException;
+
+    void delete(String key);
+}
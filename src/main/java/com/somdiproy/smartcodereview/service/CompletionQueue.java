@@ -0,0 +1,52 @@
+package com.somdiproy.smartcodereview.service;
+
+import java.util.List;
+
+/**
+ * Queue of stage-completion notifications published by the Lambda functions
+ */
+public interface CompletionQueue {
+
+    /**
+     * Wait up to waitSeconds for messages, returning an empty list when none arrived
+     */
+    List<Message> receive(int maxMessages, int waitSeconds) throws InterruptedException;
+
+    /**
+     * Remove a handled message so it is not delivered again
+     */
+    void delete(Message message);
+
+    /**
+     * Hand an unclaimed message back so it can be delivered again right away, instead of
+     * holding it (and, on a FIFO queue, its whole message group) until it becomes visible again
+     */
+    void release(Message message);
+
+    class Message {
+        private final String body;
+        private final String receiptHandle;
+        private final int receiveCount;
+
+        public Message(String body, String receiptHandle, int receiveCount) {
+            this.body = body;
+            this.receiptHandle = receiptHandle;
+            this.receiveCount = receiveCount;
+        }
+
+        public String getBody() {
+            return body;
+        }
+
+        public String getReceiptHandle() {
+            return receiptHandle;
+        }
+
+        /**
+         * How many times the message has been delivered, including this one
+         */
+        public int getReceiveCount() {
+            return receiveCount;
+        }
+    }
+}
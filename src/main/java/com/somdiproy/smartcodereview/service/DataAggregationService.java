@@ -296,6 +296,8 @@ public class DataAggregationService {
 			log.warn("⚠️ Branch is null for analysis {}, using default", analysis.getAnalysisId());
 		}
 		result.setBranch(branch);
+		result.setBranchSHA(analysis.getBranchSHA());
+		result.setDetectedBlobShas(analysis.getDetectedBlobShas());
 
 		// Timestamps with validation
 		Long startedAt = analysis.getStartedAt();
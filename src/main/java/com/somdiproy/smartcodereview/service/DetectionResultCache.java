@@ -0,0 +1,250 @@
+package com.somdiproy.smartcodereview.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.somdiproy.smartcodereview.util.DiskLruCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Detection results per file, keyed by (blob SHA, detection model, prompt version).
+ * Detection output depends only on those three, so an unchanged file is detected once
+ * and every later scan of it, by any user or branch, is answered from here.
+ * Entries expire after the TTL and the store is size-capped with LRU eviction.
+ */
+@Component
+public class DetectionResultCache {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(DetectionResultCache.class);
+
+    private static final Pattern BLOB_SHA = Pattern.compile("[0-9a-fA-F]{40}");
+
+    // Per-analysis fields that must not leak from the scan that populated an entry
+    private static final List<String> ANALYSIS_FIELDS = List.of("id", "analysisId", "sessionId", "scanNumber",
+            "repository", "branch");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Value("${aws.lambda.detection.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${aws.lambda.detection.cache.directory:${java.io.tmpdir}/smartcode/detection-cache}")
+    private String directory;
+
+    @Value("${aws.lambda.detection.cache.max-size-bytes:134217728}") // 128MB default
+    private long maxSizeBytes;
+
+    @Value("${aws.lambda.detection.cache.ttl-hours:168}")
+    private long ttlHours;
+
+    @Value("${aws.lambda.detection.model-id:amazon.nova-lite-v1:0}")
+    private String modelId;
+
+    @Value("${aws.lambda.detection.prompt-version:1}")
+    private String promptVersion;
+
+    private final MeterRegistry meterRegistry;
+    private DiskLruCache cache;
+
+    public DetectionResultCache(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    void init() {
+        if (!enabled) {
+            log.info("🗃️ Detection result cache disabled");
+            return;
+        }
+
+        cache = new DiskLruCache(Paths.get(directory), maxSizeBytes);
+
+        FunctionCounter.builder("lambda.detection.cache.requests", cache, DiskLruCache::getHitCount)
+                .tag("result", "hit")
+                .description("Files whose detection result was served from cache")
+                .register(meterRegistry);
+        FunctionCounter.builder("lambda.detection.cache.requests", cache, DiskLruCache::getMissCount)
+                .tag("result", "miss")
+                .description("Files that had to be sent to the detection Lambda")
+                .register(meterRegistry);
+        FunctionCounter.builder("lambda.detection.cache.evictions", cache, DiskLruCache::getEvictionCount)
+                .register(meterRegistry);
+        Gauge.builder("lambda.detection.cache.size", cache, DiskLruCache::getSizeBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("lambda.detection.cache.entries", cache, DiskLruCache::getEntryCount)
+                .register(meterRegistry);
+
+        log.info("🗃️ Detection result cache at {} (max {} bytes, ttl {}h, model {}, prompt v{})",
+                 directory, maxSizeBytes, ttlHours, modelId, promptVersion);
+    }
+
+    public boolean isEnabled() {
+        return cache != null;
+    }
+
+    /**
+     * Split screened files into cached issues and the files that still need detection
+     */
+    public Lookup lookup(String analysisId, List<Map<String, Object>> files) {
+        Lookup lookup = new Lookup();
+        for (Map<String, Object> file : files) {
+            Optional<List<Map<String, Object>>> cached = get(analysisId, (String) file.get("sha"), pathOf(file));
+            if (cached.isPresent()) {
+                lookup.hits.add(file);
+                lookup.issues.addAll(cached.get());
+            } else {
+                lookup.misses.add(file);
+            }
+        }
+        return lookup;
+    }
+
+    /**
+     * Cached issues for one file, with their file field set to the path it has in this scan.
+     * Files sharing a blob share an entry, so each issue gets an id derived from the analysis,
+     * path and position rather than the one detection gave it.
+     */
+    public Optional<List<Map<String, Object>>> get(String analysisId, String blobSha, String path) {
+        if (cache == null || !isBlobSha(blobSha)) {
+            return Optional.empty();
+        }
+        String key = key(blobSha);
+        Optional<byte[]> bytes = cache.get(key);
+        if (bytes.isEmpty()) {
+            return Optional.empty();
+        }
+
+        CachedResult entry;
+        try {
+            entry = objectMapper.readValue(bytes.get(), CachedResult.class);
+        } catch (IOException e) {
+            log.warn("⚠️ Dropping unreadable detection cache entry for {}: {}", blobSha, e.getMessage());
+            cache.remove(key);
+            return Optional.empty();
+        }
+        if (System.currentTimeMillis() - entry.storedAt > TimeUnit.HOURS.toMillis(ttlHours)) {
+            cache.remove(key);
+            return Optional.empty();
+        }
+
+        List<Map<String, Object>> issues = new ArrayList<>(entry.issues.size());
+        for (int i = 0; i < entry.issues.size(); i++) {
+            Map<String, Object> copy = new HashMap<>(entry.issues.get(i));
+            if (path != null) {
+                copy.put("file", path);
+            }
+            copy.put("id", UUID.nameUUIDFromBytes((analysisId + ":" + (path != null ? path : blobSha) + ":" + i)
+                    .getBytes(StandardCharsets.UTF_8)).toString());
+            issues.add(copy);
+        }
+        return Optional.of(issues);
+    }
+
+    /**
+     * Store the detection result of a batch of files. Every file in the batch gets an entry,
+     * including files with no issues, so clean files are not re-detected either. A batch with
+     * an issue whose file is not the full path of one of its files, such as a bare file name,
+     * is not cached at all, since a file could otherwise be recorded as clean or get another
+     * file's issues.
+     */
+    public void putAll(List<Map<String, Object>> files, List<Map<String, Object>> issues) {
+        if (cache == null || files.isEmpty()) {
+            return;
+        }
+
+        // Only the full path identifies a file: a bare name may belong to several files in the batch
+        Map<String, Map<String, Object>> filesByPath = new HashMap<>();
+        for (Map<String, Object> file : files) {
+            filesByPath.put(pathOf(file), file);
+        }
+
+        Map<Map<String, Object>, List<Map<String, Object>>> issuesByFile = new IdentityHashMap<>();
+        for (Map<String, Object> issue : issues) {
+            Map<String, Object> file = filesByPath.get(String.valueOf(issue.get("file")));
+            if (file == null) {
+                log.debug("Not caching detection batch: issue in {} matches none of its file paths",
+                          issue.get("file"));
+                return;
+            }
+            issuesByFile.computeIfAbsent(file, k -> new ArrayList<>()).add(withoutAnalysisFields(issue));
+        }
+
+        for (Map<String, Object> file : files) {
+            String blobSha = (String) file.get("sha");
+            if (!isBlobSha(blobSha)) {
+                continue;
+            }
+            List<Map<String, Object>> fileIssues = issuesByFile.getOrDefault(file, List.of());
+            try {
+                cache.put(key(blobSha), objectMapper.writeValueAsBytes(
+                        new CachedResult(System.currentTimeMillis(), fileIssues)));
+            } catch (IOException e) {
+                log.warn("⚠️ Failed to cache detection result for {}: {}", pathOf(file), e.getMessage());
+            }
+        }
+    }
+
+    private Map<String, Object> withoutAnalysisFields(Map<String, Object> issue) {
+        Map<String, Object> copy = new LinkedHashMap<>(issue);
+        ANALYSIS_FIELDS.forEach(copy::remove);
+        return copy;
+    }
+
+    private String key(String blobSha) {
+        return blobSha.toLowerCase() + ":" + modelId + ":" + promptVersion;
+    }
+
+    private String pathOf(Map<String, Object> file) {
+        Object path = file.get("path");
+        return path != null ? path.toString() : (String) file.get("name");
+    }
+
+    private boolean isBlobSha(String sha) {
+        return sha != null && BLOB_SHA.matcher(sha).matches();
+    }
+
+    /**
+     * Issues found for cached files, the files that hit and the files that missed
+     */
+    public static class Lookup {
+        private final List<Map<String, Object>> issues = new ArrayList<>();
+        private final List<Map<String, Object>> hits = new ArrayList<>();
+        private final List<Map<String, Object>> misses = new ArrayList<>();
+
+        public List<Map<String, Object>> getIssues() { return issues; }
+        public List<Map<String, Object>> getHits() { return hits; }
+        public List<Map<String, Object>> getMisses() { return misses; }
+        public int getHitFiles() { return hits.size(); }
+    }
+
+    private static class CachedResult {
+        public long storedAt;
+        public List<Map<String, Object>> issues;
+
+        public CachedResult() {
+        }
+
+        private CachedResult(long storedAt, List<Map<String, Object>> issues) {
+            this.storedAt = storedAt;
+            this.issues = issues;
+        }
+    }
+}
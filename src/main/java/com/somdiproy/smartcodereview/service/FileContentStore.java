@@ -0,0 +1,120 @@
+package com.somdiproy.smartcodereview.service;
+
+import com.somdiproy.smartcodereview.util.FileContent;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.stream.Stream;
+
+/**
+ * Creates file content holders for fetched files, keeping small files on the heap
+ * and spilling large ones to temp files outside it. Streams are copied
+ * to the spill file as soon as they pass the threshold, so a large file is never
+ * held on the heap in full.
+ */
+@Component
+public class FileContentStore {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(FileContentStore.class);
+
+    @Value("${analysis.content.spill-threshold-bytes:262144}") // 256KB default
+    private long spillThresholdBytes;
+
+    @Value("${analysis.content.spill-directory:${java.io.tmpdir}/smartcode/spill}")
+    private String spillDirectory;
+
+    private Path directory;
+
+    @PostConstruct
+    void init() throws IOException {
+        directory = Paths.get(spillDirectory);
+        Files.createDirectories(directory);
+
+        // Spill files never outlive the process that created them
+        try (Stream<Path> leftovers = Files.list(directory)) {
+            leftovers.forEach(file -> {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    log.debug("Could not delete stale spill file {}", file);
+                }
+            });
+        }
+        log.info("🗂️ File contents above {} bytes spill to {}", spillThresholdBytes, directory);
+    }
+
+    /**
+     * Read UTF-8 content from a stream, spilling to disk once it passes the threshold.
+     * Returns null when the content is longer than limit bytes. The stream is not closed.
+     */
+    public FileContent store(InputStream in, long limit) throws IOException {
+        ByteArrayOutputStream head = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        long total = 0;
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            total += read;
+            if (total > limit) {
+                return null;
+            }
+            head.write(buffer, 0, read);
+            if (total > spillThresholdBytes) {
+                return spillRest(head, in, total, limit, buffer);
+            }
+        }
+        return FileContent.inMemory(head.toByteArray());
+    }
+
+    /**
+     * Write what was read so far and the rest of the stream to a spill file
+     */
+    private FileContent spillRest(ByteArrayOutputStream head, InputStream in, long total, long limit,
+                                  byte[] buffer) throws IOException {
+        Path file;
+        try {
+            file = Files.createTempFile(directory, "content-", ".bin");
+        } catch (IOException e) {
+            log.warn("⚠️ Failed to create spill file, keeping in memory: {}", e.getMessage());
+            return readRestInMemory(head, in, total, limit, buffer);
+        }
+
+        try (OutputStream out = Files.newOutputStream(file)) {
+            head.writeTo(out);
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                total += read;
+                if (total > limit) {
+                    out.close();
+                    Files.deleteIfExists(file);
+                    return null;
+                }
+                out.write(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        return FileContent.spilled(file);
+    }
+
+    private FileContent readRestInMemory(ByteArrayOutputStream head, InputStream in, long total, long limit,
+                                         byte[] buffer) throws IOException {
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            total += read;
+            if (total > limit) {
+                return null;
+            }
+            head.write(buffer, 0, read);
+        }
+        return FileContent.inMemory(head.toByteArray());
+    }
+}
@@ -0,0 +1,138 @@
+package com.somdiproy.smartcodereview.service;
+
+import org.kohsuke.github.GHTreeEntry;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Picks which files a scan spends its file budget on.
+ * Files are scored from tree metadata alone (path, language, size, change hints)
+ * and the top N are kept with a bounded min-heap, so ranking a large tree
+ * costs O(n log N) without sorting every entry.
+ */
+@Component
+public class FileRiskRanker {
+
+    // Path segments that usually hold request handling, auth or secrets
+    private static final Set<String> SENSITIVE_SEGMENTS = Set.of(
+            "auth", "authentication", "authorization", "security", "login", "oauth", "session", "sessions",
+            "token", "tokens", "password", "crypto", "admin", "controller", "controllers", "api", "routes",
+            "handler", "handlers", "middleware", "config", "configuration", "servlet", "filter", "filters",
+            "payment", "payments", "upload", "uploads", "user", "users", "account", "accounts");
+
+    private static final Set<String> DATA_ACCESS_SEGMENTS = Set.of(
+            "db", "dao", "repository", "repositories", "sql", "query", "queries", "model", "models", "service", "services");
+
+    // Share of historical findings per language is uneven, so weight them accordingly
+    private static final Map<String, Double> LANGUAGE_WEIGHTS = Map.ofEntries(
+            Map.entry(".php", 1.3), Map.entry(".js", 1.2), Map.entry(".ts", 1.1), Map.entry(".java", 1.1),
+            Map.entry(".py", 1.1), Map.entry(".rb", 1.1), Map.entry(".go", 1.0), Map.entry(".cs", 1.0),
+            Map.entry(".c", 1.2), Map.entry(".cpp", 1.2), Map.entry(".kt", 1.0), Map.entry(".scala", 0.9),
+            Map.entry(".swift", 0.9));
+
+    private static final Comparator<Scored> BY_SCORE = Comparator
+            .comparingDouble((Scored scored) -> scored.score)
+            .thenComparing(scored -> scored.entry.getPath(), Comparator.reverseOrder());
+
+    /**
+     * Select up to limit entries with the highest scores, highest first.
+     * recentlyChanged marks entries whose content changed since the previous analysis.
+     */
+    public List<GHTreeEntry> selectTop(List<GHTreeEntry> entries, int limit, Predicate<GHTreeEntry> recentlyChanged) {
+        if (entries.size() <= limit) {
+            return new ArrayList<>(entries);
+        }
+        if (limit <= 0) {
+            return new ArrayList<>();
+        }
+
+        // Min-heap holding the best entries seen so far, weakest on top
+        PriorityQueue<Scored> heap = new PriorityQueue<>(limit + 1, BY_SCORE);
+        for (GHTreeEntry entry : entries) {
+            Scored scored = new Scored(entry, score(entry, recentlyChanged.test(entry)));
+            if (heap.size() < limit) {
+                heap.add(scored);
+            } else if (BY_SCORE.compare(scored, heap.peek()) > 0) {
+                heap.poll();
+                heap.add(scored);
+            }
+        }
+
+        List<Scored> selected = new ArrayList<>(heap);
+        selected.sort(BY_SCORE.reversed());
+        List<GHTreeEntry> result = new ArrayList<>(selected.size());
+        selected.forEach(scored -> result.add(scored.entry));
+        return result;
+    }
+
+    /**
+     * Cheap metadata-only risk score, higher means more likely to contain findings
+     */
+    public double score(GHTreeEntry entry, boolean recentlyChanged) {
+        String path = entry.getPath().toLowerCase(Locale.ROOT);
+        String[] segments = path.split("/");
+        String fileName = segments[segments.length - 1];
+
+        double score = 1.0;
+
+        for (String segment : segments) {
+            String stem = stripExtension(segment);
+            if (SENSITIVE_SEGMENTS.contains(stem)) {
+                score += 2.0;
+            } else if (DATA_ACCESS_SEGMENTS.contains(stem)) {
+                score += 1.0;
+            }
+        }
+        for (String keyword : SENSITIVE_SEGMENTS) {
+            if (fileName.contains(keyword)) {
+                score += 1.0;
+                break;
+            }
+        }
+
+        // Very deep paths tend to be generated code or fixtures
+        if (segments.length > 6) {
+            score -= 0.25 * (segments.length - 6);
+        }
+
+        long size = entry.getSize();
+        if (size < 256) {
+            score -= 1.0;
+        } else if (size <= 64 * 1024) {
+            score += 0.5;
+        } else if (size > 512 * 1024) {
+            score -= 0.5;
+        }
+
+        if (recentlyChanged) {
+            score += 1.0;
+        }
+
+        int lastDot = fileName.lastIndexOf('.');
+        double languageWeight = lastDot >= 0 ? LANGUAGE_WEIGHTS.getOrDefault(fileName.substring(lastDot), 1.0) : 1.0;
+        return Math.max(0.0, score) * languageWeight;
+    }
+
+    private String stripExtension(String segment) {
+        int lastDot = segment.lastIndexOf('.');
+        return lastDot > 0 ? segment.substring(0, lastDot) : segment;
+    }
+
+    private static class Scored {
+        private final GHTreeEntry entry;
+        private final double score;
+
+        private Scored(GHTreeEntry entry, double score) {
+            this.entry = entry;
+            this.score = score;
+        }
+    }
+}
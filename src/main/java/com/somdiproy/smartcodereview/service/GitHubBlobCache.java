@@ -0,0 +1,130 @@
+package com.somdiproy.smartcodereview.service;
+
+import com.somdiproy.smartcodereview.util.DiskLruCache;
+import com.somdiproy.smartcodereview.util.FileContent;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Content-addressed store for fetched file contents, keyed by git blob SHA.
+ * A blob SHA identifies the exact bytes of a file, so entries never go stale and
+ * can be shared across scans, branches and sessions.
+ */
+@Component
+public class GitHubBlobCache {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(GitHubBlobCache.class);
+
+    private static final Pattern BLOB_SHA = Pattern.compile("[0-9a-fA-F]{40}");
+
+    @Value("${github.blob-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${github.blob-cache.directory:${java.io.tmpdir}/smartcode/blob-cache}")
+    private String directory;
+
+    @Value("${github.blob-cache.max-size-bytes:268435456}") // 256MB default
+    private long maxSizeBytes;
+
+    private final MeterRegistry meterRegistry;
+    private DiskLruCache cache;
+
+    public GitHubBlobCache(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    void init() {
+        if (!enabled) {
+            log.info("💾 GitHub blob cache disabled");
+            return;
+        }
+
+        cache = new DiskLruCache(Paths.get(directory), maxSizeBytes);
+
+        FunctionCounter.builder("github.blob.cache.requests", cache, DiskLruCache::getHitCount)
+                .tag("result", "hit")
+                .description("Blob cache lookups served from local disk")
+                .register(meterRegistry);
+        FunctionCounter.builder("github.blob.cache.requests", cache, DiskLruCache::getMissCount)
+                .tag("result", "miss")
+                .description("Blob cache lookups that had to go to GitHub")
+                .register(meterRegistry);
+        FunctionCounter.builder("github.blob.cache.evictions", cache, DiskLruCache::getEvictionCount)
+                .description("Blobs evicted to stay under the size cap")
+                .register(meterRegistry);
+        Gauge.builder("github.blob.cache.size", cache, DiskLruCache::getSizeBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("github.blob.cache.entries", cache, DiskLruCache::getEntryCount)
+                .register(meterRegistry);
+
+        log.info("💾 GitHub blob cache at {} (max {} bytes)", directory, maxSizeBytes);
+    }
+
+    /**
+     * Look up file content by blob SHA
+     */
+    public Optional<String> get(String blobSha) {
+        if (cache == null || !isBlobSha(blobSha)) {
+            return Optional.empty();
+        }
+        return cache.get(blobSha).map(bytes -> new String(bytes, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Open the raw UTF-8 bytes of a blob for streaming; the caller closes the stream
+     */
+    public Optional<InputStream> openStream(String blobSha) {
+        if (cache == null || !isBlobSha(blobSha)) {
+            return Optional.empty();
+        }
+        return cache.openStream(blobSha);
+    }
+
+    /**
+     * Whether a blob is cached, without counting as a lookup
+     */
+    public boolean contains(String blobSha) {
+        return cache != null && isBlobSha(blobSha) && cache.contains(blobSha);
+    }
+
+    /**
+     * Store file content under its blob SHA
+     */
+    public void put(String blobSha, String content) {
+        if (cache == null || !isBlobSha(blobSha) || content == null) {
+            return;
+        }
+        cache.put(blobSha, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Store fetched content under its blob SHA, streaming it from the heap or its spill file
+     */
+    public void putContent(String blobSha, FileContent content) {
+        if (cache == null || !isBlobSha(blobSha) || content == null) {
+            return;
+        }
+        try (InputStream in = content.openStream()) {
+            cache.put(blobSha, in, content.length());
+        } catch (IOException e) {
+            log.warn("⚠️ Failed to cache blob {}: {}", blobSha, e.getMessage());
+        }
+    }
+
+    private boolean isBlobSha(String sha) {
+        return sha != null && BLOB_SHA.matcher(sha).matches();
+    }
+}
@@ -0,0 +1,92 @@
+package com.somdiproy.smartcodereview.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.somdiproy.smartcodereview.util.TokenHasher;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.kohsuke.github.GHRateLimit;
+import org.kohsuke.github.GitHub;
+import org.kohsuke.github.GitHubBuilder;
+import org.kohsuke.github.connector.GitHubConnector;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Keeps one GitHub client per access token, keyed by the token's hash.
+ * All clients share the pooled, ETag-caching HTTP connector, and a client is only validated
+ * against the API when it is first created; afterwards rate limit state comes
+ * from the headers of ordinary responses.
+ */
+@Component
+public class GitHubClientRegistry {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(GitHubClientRegistry.class);
+
+    private final GitHubConnector connector;
+    private final GitHubDownloadScheduler downloadScheduler;
+    private final Cache<String, GitHub> clients;
+
+    public GitHubClientRegistry(@Qualifier("githubHttpClient") CloseableHttpClient githubHttpClient,
+                                GitHubDownloadScheduler downloadScheduler,
+                                GitHubResponseCache responseCache,
+                                @Value("${github.client.idle-expiry-minutes:30}") long idleExpiryMinutes,
+                                @Value("${github.client.max-clients:1000}") long maxClients) {
+        GitHubConnector httpConnector = new GitHubHttpConnector(githubHttpClient);
+        this.connector = responseCache.isEnabled()
+                ? new CachingGitHubConnector(httpConnector, responseCache)
+                : httpConnector;
+        this.downloadScheduler = downloadScheduler;
+        this.clients = CacheBuilder.newBuilder()
+                .expireAfterAccess(Duration.ofMinutes(idleExpiryMinutes))
+                .maximumSize(maxClients)
+                .build();
+    }
+
+    /**
+     * Get the client for a token, creating and validating it on first use
+     */
+    public GitHub clientFor(String token) throws IOException {
+        try {
+            return clients.get(TokenHasher.hash(token), () -> createClient(token));
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Failed to create GitHub client: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * Drop the cached client for a token, e.g. after it was rejected
+     */
+    public void invalidate(String token) {
+        clients.invalidate(TokenHasher.hash(token));
+    }
+
+    /**
+     * Core rate limit as of the token's last response, without calling the API
+     */
+    public GHRateLimit.Record lastCoreRateLimit(String token) {
+        return downloadScheduler.lastCoreRateLimit(token);
+    }
+
+    private GitHub createClient(String token) throws IOException {
+        GitHub github = new GitHubBuilder()
+                .withOAuthToken(token)
+                .withConnector(connector)
+                .withRateLimitHandler(downloadScheduler.rateLimitHandler(token))
+                .withAbuseLimitHandler(downloadScheduler.abuseLimitHandler(token))
+                .withRateLimitChecker(downloadScheduler.rateLimitChecker(token))
+                .build();
+
+        GHRateLimit.Record core = github.getRateLimit().getCore();
+        log.info("🔑 Created GitHub client {} (rate limit {}/{})",
+                 TokenHasher.label(TokenHasher.hash(token)), core.getRemaining(), core.getLimit());
+        return github;
+    }
+}
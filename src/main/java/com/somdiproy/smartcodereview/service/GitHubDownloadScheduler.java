@@ -0,0 +1,472 @@
+package com.somdiproy.smartcodereview.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.somdiproy.smartcodereview.util.TokenHasher;
+import jakarta.annotation.PreDestroy;
+import org.kohsuke.github.GHRateLimit;
+import org.kohsuke.github.GitHubAbuseLimitHandler;
+import org.kohsuke.github.GitHubRateLimitHandler;
+import org.kohsuke.github.RateLimitChecker;
+import org.kohsuke.github.connector.GitHubConnectorResponse;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Schedules GitHub file downloads on the githubExecutor pool.
+ * Work is queued per token, and each token gets its own in-flight limit that adapts to
+ * GitHub's rate limit signals: it grows slowly on success, halves on a throttle, and the
+ * whole lane pauses until Retry-After or the rate limit reset instead of sleeping a thread.
+ */
+@Component
+public class GitHubDownloadScheduler {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(GitHubDownloadScheduler.class);
+
+    // GitHub documents a one minute wait for secondary limits that omit Retry-After
+    private static final long DEFAULT_SECONDARY_WAIT_MS = 60_000;
+    private static final long REJECTED_RETRY_DELAY_MS = 200;
+
+    // Set while a scheduled download runs, so throttle handlers hand control back to the scheduler
+    private static final ThreadLocal<Boolean> SCHEDULED = ThreadLocal.withInitial(() -> false);
+
+    private final Executor githubExecutor;
+    private final ScheduledExecutorService timer;
+    private final ConcurrentHashMap<String, Lane> lanes = new ConcurrentHashMap<>();
+    // Core rate limit each token's client last saw; a record is stale after its hourly reset anyway
+    private final Cache<String, GHRateLimit.Record> coreRateLimits = CacheBuilder.newBuilder()
+            .expireAfterWrite(Duration.ofHours(1))
+            .maximumSize(10_000)
+            .build();
+
+    @Value("${github.download.initial-concurrency:4}")
+    private int initialConcurrency;
+
+    @Value("${github.download.max-concurrency-per-token:${github.analysis.parallel-downloads:5}}")
+    private int maxConcurrency;
+
+    @Value("${github.analysis.retry-attempts:3}")
+    private int retryAttempts;
+
+    @Value("${github.download.rate-limit-reserve:50}")
+    private int rateLimitReserve;
+
+    @Value("${github.download.max-queue-time-ms:300000}") // 5 minutes default
+    private long maxQueueTimeMs;
+
+    @Value("${github.timeout:30000}")
+    private long requestTimeoutMs;
+
+    public GitHubDownloadScheduler(@Qualifier("githubExecutor") Executor githubExecutor) {
+        this.githubExecutor = githubExecutor;
+        this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "github-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        timer.shutdownNow();
+    }
+
+    /**
+     * A single GitHub call that may be retried by the scheduler
+     */
+    @FunctionalInterface
+    public interface GitHubCall<T> {
+        T call() throws IOException;
+    }
+
+    /**
+     * Queue a call on the lane of the given token
+     */
+    public <T> CompletableFuture<T> submit(String token, GitHubCall<T> call) {
+        String laneKey = TokenHasher.hash(token);
+        Task<T> task = new Task<>(call, System.currentTimeMillis() + maxQueueTimeMs);
+
+        Lane lane = lanes.compute(laneKey, (key, existing) -> {
+            Lane target = existing != null ? existing : new Lane(key, initialConcurrency);
+            synchronized (target) {
+                target.queue.addLast(task);
+            }
+            return target;
+        });
+        dispatch(lane);
+        return task.future;
+    }
+
+    /**
+     * Rate limit checker for clients of the given token. The client hands it the core rate limit
+     * of its latest response before every request; once that is down to the reserve the lane
+     * pauses until the reset rather than running into the limit. Requests are never held here.
+     */
+    public RateLimitChecker rateLimitChecker(String token) {
+        String laneKey = TokenHasher.hash(token);
+        return new RateLimitChecker() {
+            @Override
+            protected boolean checkRateLimit(GHRateLimit.Record record, long count) {
+                observeRateLimit(laneKey, record);
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Core rate limit the token's client last saw, or null when it has not made a request yet
+     */
+    public GHRateLimit.Record lastCoreRateLimit(String token) {
+        return coreRateLimits.getIfPresent(TokenHasher.hash(token));
+    }
+
+    /**
+     * Longest a caller needs to wait for a submitted call: its time in the queue plus one request
+     */
+    public long maxWaitMillis() {
+        return maxQueueTimeMs + requestTimeoutMs;
+    }
+
+    /**
+     * Rate limit handler for clients of the given token. Inside a scheduled download the lane is
+     * paused and the call handed back for requeueing; elsewhere the calling thread waits it out.
+     */
+    public GitHubRateLimitHandler rateLimitHandler(String token) {
+        String laneKey = TokenHasher.hash(token);
+        return new GitHubRateLimitHandler() {
+            @Override
+            public void onError(GitHubConnectorResponse response) throws IOException {
+                long waitMs = primaryWaitMillis(response);
+                throttle(laneKey, waitMs, "rate limit");
+                if (SCHEDULED.get()) {
+                    throw new GitHubThrottledException("GitHub rate limit exceeded", waitMs);
+                }
+                waitOut(waitMs);
+            }
+        };
+    }
+
+    /**
+     * Secondary (abuse) limit handler for clients of the given token
+     */
+    public GitHubAbuseLimitHandler abuseLimitHandler(String token) {
+        String laneKey = TokenHasher.hash(token);
+        return new GitHubAbuseLimitHandler() {
+            @Override
+            public void onError(GitHubConnectorResponse response) throws IOException {
+                long waitMs = secondaryWaitMillis(response);
+                throttle(laneKey, waitMs, "secondary rate limit");
+                if (SCHEDULED.get()) {
+                    throw new GitHubThrottledException("GitHub secondary rate limit exceeded", waitMs);
+                }
+                waitOut(waitMs);
+            }
+        };
+    }
+
+    /**
+     * Returning from a limit handler makes the client retry the request
+     */
+    private static void waitOut(long waitMs) throws IOException {
+        try {
+            Thread.sleep(waitMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the GitHub rate limit");
+        }
+    }
+
+    private void dispatch(Lane lane) {
+        long now = System.currentTimeMillis();
+        List<Task<?>> expired;
+        boolean drained = true;
+        synchronized (lane) {
+            expired = expireQueued(lane, Math.max(now, lane.pausedUntil));
+            if (lane.pausedUntil > now) {
+                scheduleDrain(lane, lane.pausedUntil - now);
+                drained = false;
+            }
+
+            while (drained && lane.inFlight < lane.permits() && !lane.queue.isEmpty()) {
+                Task<?> task = lane.queue.pollFirst();
+                lane.inFlight++;
+                try {
+                    githubExecutor.execute(() -> run(lane, task));
+                } catch (RejectedExecutionException e) {
+                    lane.inFlight--;
+                    lane.queue.addFirst(task);
+                    scheduleDrain(lane, REJECTED_RETRY_DELAY_MS);
+                    drained = false;
+                }
+            }
+        }
+        expired.forEach(task -> task.future.completeExceptionally(
+                new TimeoutException("GitHub download was queued past its deadline")));
+        if (drained) {
+            retireIfIdle(lane);
+        }
+    }
+
+    private <T> void run(Lane lane, Task<T> task) {
+        SCHEDULED.set(true);
+        try {
+            T result = task.call.call();
+            onSuccess(lane);
+            task.future.complete(result);
+        } catch (Exception e) {
+            onFailure(lane, task, e);
+        } finally {
+            SCHEDULED.set(false);
+            synchronized (lane) {
+                lane.inFlight--;
+            }
+            dispatch(lane);
+        }
+    }
+
+    private void onSuccess(Lane lane) {
+        synchronized (lane) {
+            lane.limit = Math.min(maxConcurrency, lane.limit + 1.0 / lane.limit);
+        }
+    }
+
+    private void observeRateLimit(String laneKey, GHRateLimit.Record core) {
+        if (core == null || core.getLimit() <= 0) {
+            return;
+        }
+        coreRateLimits.put(laneKey, core);
+
+        // Stop just short of the primary limit rather than running into it
+        Lane lane = lanes.get(laneKey);
+        if (lane == null || core.getRemaining() > rateLimitReserve) {
+            return;
+        }
+        long resetAt = core.getResetEpochSeconds() * 1000;
+        synchronized (lane) {
+            if (resetAt > lane.pausedUntil) {
+                lane.pausedUntil = resetAt;
+                log.warn("⏸️ GitHub lane {} down to {} requests, pausing until reset",
+                         TokenHasher.label(lane.key), core.getRemaining());
+            }
+        }
+    }
+
+    private <T> void onFailure(Lane lane, Task<T> task, Exception e) {
+        GitHubThrottledException throttled = findThrottle(e);
+        long now = System.currentTimeMillis();
+
+        if (throttled != null) {
+            if (now + throttled.getRetryAfterMillis() > task.deadline) {
+                log.warn("⚠️ Giving up on GitHub download after throttling past its queue deadline");
+                task.future.completeExceptionally(throttled);
+                return;
+            }
+            // The lane is already paused, so the task runs again once it resumes
+            synchronized (lane) {
+                lane.queue.addFirst(task);
+            }
+            return;
+        }
+
+        task.attempts++;
+        if (e instanceof FileNotFoundException || task.attempts >= retryAttempts || now > task.deadline) {
+            task.future.completeExceptionally(e);
+            return;
+        }
+
+        long backoffMs = 1000L << (task.attempts - 1);
+        log.debug("Retrying GitHub download in {}ms (attempt {}): {}", backoffMs, task.attempts + 1, e.getMessage());
+        synchronized (lane) {
+            lane.pendingRetries++;
+        }
+        timer.schedule(() -> {
+            synchronized (lane) {
+                lane.pendingRetries--;
+                lane.queue.addLast(task);
+            }
+            dispatch(lane);
+        }, backoffMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void throttle(String laneKey, long waitMs, String reason) {
+        Lane lane = lanes.compute(laneKey, (key, existing) -> {
+            Lane target = existing != null ? existing : new Lane(key, initialConcurrency);
+            synchronized (target) {
+                target.limit = Math.max(1.0, target.limit / 2);
+                target.pausedUntil = Math.max(target.pausedUntil, System.currentTimeMillis() + waitMs);
+                // Wake the lane once the pause is over, so it drains its queue or, with none, is retired
+                scheduleDrain(target, Math.max(0, target.pausedUntil - System.currentTimeMillis()));
+            }
+            return target;
+        });
+        log.warn("🚦 GitHub {} hit on lane {}, pausing {}ms with concurrency {}",
+                 reason, TokenHasher.label(laneKey), waitMs, (int) lane.limit);
+    }
+
+    /**
+     * Take out the queued tasks that cannot start before their deadline, and the ones whose
+     * caller stopped waiting
+     */
+    private List<Task<?>> expireQueued(Lane lane, long earliestStart) {
+        List<Task<?>> expired = new ArrayList<>();
+        Iterator<Task<?>> iterator = lane.queue.iterator();
+        while (iterator.hasNext()) {
+            Task<?> task = iterator.next();
+            if (task.future.isDone()) {
+                iterator.remove();
+            } else if (task.deadline < earliestStart) {
+                iterator.remove();
+                expired.add(task);
+            }
+        }
+        if (!expired.isEmpty()) {
+            log.warn("⏰ Expired {} GitHub downloads queued on lane {} past their deadline",
+                     expired.size(), TokenHasher.label(lane.key));
+        }
+        return expired;
+    }
+
+    private void scheduleDrain(Lane lane, long delayMs) {
+        if (lane.drainScheduled) {
+            return;
+        }
+        lane.drainScheduled = true;
+        timer.schedule(() -> {
+            synchronized (lane) {
+                lane.drainScheduled = false;
+            }
+            dispatch(lane);
+        }, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void retireIfIdle(Lane lane) {
+        lanes.computeIfPresent(lane.key, (key, existing) -> {
+            if (existing != lane) {
+                return existing;
+            }
+            synchronized (lane) {
+                boolean idle = lane.queue.isEmpty() && lane.inFlight == 0 && lane.pendingRetries == 0
+                        && !lane.drainScheduled
+                        && lane.pausedUntil <= System.currentTimeMillis();
+                return idle ? null : lane;
+            }
+        });
+    }
+
+    private long primaryWaitMillis(GitHubConnectorResponse response) {
+        Long retryAfter = retryAfterMillis(response);
+        if (retryAfter != null) {
+            return retryAfter;
+        }
+        String reset = response.header("X-RateLimit-Reset");
+        if (reset != null) {
+            try {
+                return Math.max(1000, Long.parseLong(reset) * 1000 - System.currentTimeMillis());
+            } catch (NumberFormatException ignored) {
+                // fall through to the default wait
+            }
+        }
+        return DEFAULT_SECONDARY_WAIT_MS;
+    }
+
+    private long secondaryWaitMillis(GitHubConnectorResponse response) {
+        Long retryAfter = retryAfterMillis(response);
+        if (retryAfter != null) {
+            return retryAfter;
+        }
+        // A secondary limit with no quota left is really the primary limit
+        if ("0".equals(response.header("X-RateLimit-Remaining"))) {
+            return primaryWaitMillis(response);
+        }
+        return DEFAULT_SECONDARY_WAIT_MS;
+    }
+
+    private Long retryAfterMillis(GitHubConnectorResponse response) {
+        String retryAfter = response.header("Retry-After");
+        if (retryAfter == null) {
+            return null;
+        }
+        try {
+            return Math.max(1000, Long.parseLong(retryAfter.trim()) * 1000);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private GitHubThrottledException findThrottle(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof GitHubThrottledException) {
+                return (GitHubThrottledException) t;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Raised inside scheduled downloads when GitHub asks the client to back off
+     */
+    public static class GitHubThrottledException extends IOException {
+        private final long retryAfterMillis;
+
+        public GitHubThrottledException(String message, long retryAfterMillis) {
+            super(message + ", retry after " + retryAfterMillis + "ms");
+            this.retryAfterMillis = retryAfterMillis;
+        }
+
+        public long getRetryAfterMillis() { return retryAfterMillis; }
+    }
+
+    /**
+     * Per-token queue with its own adaptive in-flight limit
+     */
+    private static class Lane {
+        private final String key;
+        private final Deque<Task<?>> queue = new ArrayDeque<>();
+        private double limit;
+        private int inFlight;
+        // Tasks backing off before a retry, neither queued nor in flight
+        private int pendingRetries;
+        private long pausedUntil;
+        private boolean drainScheduled;
+
+        private Lane(String key, int initialLimit) {
+            this.key = key;
+            this.limit = Math.max(1, initialLimit);
+        }
+
+        private int permits() {
+            return (int) Math.floor(limit);
+        }
+    }
+
+    private static class Task<T> {
+        private final GitHubCall<T> call;
+        private final long deadline;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private int attempts;
+
+        private Task(GitHubCall<T> call, long deadline) {
+            this.call = call;
+            this.deadline = deadline;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.somdiproy.smartcodereview.service;
+
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.apache.hc.core5.http.io.entity.InputStreamEntity;
+import org.apache.hc.core5.http.message.BasicClassicHttpRequest;
+import org.kohsuke.github.connector.GitHubConnector;
+import org.kohsuke.github.connector.GitHubConnectorRequest;
+import org.kohsuke.github.connector.GitHubConnectorResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * GitHub API connector backed by the shared pooled Apache HttpClient, so calls
+ * across operations and tokens reuse kept-alive TLS connections.
+ */
+public class GitHubHttpConnector implements GitHubConnector {
+
+    // Managed by HttpClient itself
+    private static final Set<String> SKIPPED_REQUEST_HEADERS = Set.of(
+            HttpHeaders.CONTENT_LENGTH.toLowerCase(),
+            HttpHeaders.HOST.toLowerCase(),
+            HttpHeaders.TRANSFER_ENCODING.toLowerCase(),
+            HttpHeaders.CONNECTION.toLowerCase());
+
+    private final CloseableHttpClient httpClient;
+
+    public GitHubHttpConnector(CloseableHttpClient httpClient) {
+        this.httpClient = httpClient;
+    }
+
+    @Override
+    public GitHubConnectorResponse send(GitHubConnectorRequest request) throws IOException {
+        BasicClassicHttpRequest httpRequest;
+        try {
+            httpRequest = new BasicClassicHttpRequest(request.method(), request.url().toURI());
+        } catch (URISyntaxException e) {
+            throw new IOException("Invalid GitHub API URL: " + request.url(), e);
+        }
+
+        for (Map.Entry<String, List<String>> header : request.allHeaders().entrySet()) {
+            if (header.getKey() == null || SKIPPED_REQUEST_HEADERS.contains(header.getKey().toLowerCase())) {
+                continue;
+            }
+            for (String value : header.getValue()) {
+                httpRequest.addHeader(header.getKey(), value);
+            }
+        }
+
+        if (request.hasBody()) {
+            ContentType contentType = request.contentType() != null
+                    ? ContentType.parse(request.contentType())
+                    : ContentType.APPLICATION_JSON;
+            httpRequest.setEntity(new InputStreamEntity(request.body(), contentType));
+        }
+
+        ClassicHttpResponse response = httpClient.executeOpen(null, httpRequest, null);
+        return new HttpClientResponse(request, response);
+    }
+
+    /**
+     * Response that streams the body and returns the connection to the pool on close.
+     * Error bodies are small and may be read more than once, so they are buffered.
+     */
+    private static class HttpClientResponse extends GitHubConnectorResponse {
+        private final ClassicHttpResponse response;
+        private InputStream body;
+        private byte[] errorBody;
+
+        private HttpClientResponse(GitHubConnectorRequest request, ClassicHttpResponse response) {
+            super(request, response.getCode(), headersOf(response));
+            this.response = response;
+        }
+
+        @Override
+        public InputStream bodyStream() throws IOException {
+            if (statusCode() >= 400) {
+                if (errorBody == null) {
+                    HttpEntity entity = response.getEntity();
+                    errorBody = entity != null ? EntityUtils.toByteArray(entity) : new byte[0];
+                }
+                return new ByteArrayInputStream(errorBody);
+            }
+            if (body == null) {
+                HttpEntity entity = response.getEntity();
+                body = entity != null ? entity.getContent() : InputStream.nullInputStream();
+            }
+            return body;
+        }
+
+        @Override
+        public void close() throws IOException {
+            response.close();
+        }
+
+        private static Map<String, List<String>> headersOf(ClassicHttpResponse response) {
+            Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            for (Header header : response.getHeaders()) {
+                headers.computeIfAbsent(header.getName(), name -> new ArrayList<>()).add(header.getValue());
+            }
+            return headers;
+        }
+    }
+}
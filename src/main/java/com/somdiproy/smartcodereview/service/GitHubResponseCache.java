@@ -0,0 +1,180 @@
+package com.somdiproy.smartcodereview.service;
+
+import com.somdiproy.smartcodereview.util.DiskLruCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Persistent store of GitHub API responses that carry an ETag, used to turn
+ * repeat metadata requests into conditional requests. Entries are always
+ * revalidated with the caller's own token, so a cached body is only replayed
+ * when GitHub confirms it with a 304 for that caller.
+ */
+@Component
+public class GitHubResponseCache {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(GitHubResponseCache.class);
+
+    @Value("${github.http-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${github.http-cache.directory:${java.io.tmpdir}/smartcode/http-cache}")
+    private String directory;
+
+    @Value("${github.http-cache.max-size-bytes:134217728}") // 128MB default
+    private long maxSizeBytes;
+
+    @Value("${github.http-cache.max-entry-bytes:16777216}") // 16MB default
+    private long maxEntryBytes;
+
+    private final MeterRegistry meterRegistry;
+    private DiskLruCache cache;
+
+    public GitHubResponseCache(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    void init() {
+        if (!enabled) {
+            log.info("🌐 GitHub HTTP response cache disabled");
+            return;
+        }
+
+        cache = new DiskLruCache(Paths.get(directory), maxSizeBytes);
+
+        FunctionCounter.builder("github.http.cache.evictions", cache, DiskLruCache::getEvictionCount)
+                .description("Cached responses evicted to stay under the size cap")
+                .register(meterRegistry);
+        Gauge.builder("github.http.cache.size", cache, DiskLruCache::getSizeBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("github.http.cache.entries", cache, DiskLruCache::getEntryCount)
+                .register(meterRegistry);
+
+        log.info("🌐 GitHub HTTP response cache at {} (max {} bytes)", directory, maxSizeBytes);
+    }
+
+    public boolean isEnabled() {
+        return cache != null;
+    }
+
+    public long getMaxEntryBytes() {
+        return maxEntryBytes;
+    }
+
+    /**
+     * Look up a stored response
+     */
+    public Optional<CachedResponse> get(String key) {
+        if (cache == null) {
+            return Optional.empty();
+        }
+        return cache.get(key).flatMap(bytes -> {
+            try {
+                return Optional.of(decode(bytes));
+            } catch (IOException e) {
+                log.debug("Dropping unreadable cached response: {}", e.getMessage());
+                cache.remove(key);
+                return Optional.empty();
+            }
+        });
+    }
+
+    /**
+     * Store a response body with the headers needed to replay it
+     */
+    public void put(String key, Map<String, List<String>> headers, byte[] body) {
+        if (cache == null || body.length > maxEntryBytes) {
+            return;
+        }
+        try {
+            cache.put(key, encode(headers, body));
+        } catch (IOException e) {
+            log.debug("Failed to encode response for caching: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Count a lookup outcome for a resource kind (hit, miss, stored, bypass)
+     */
+    public void record(String resource, String result, long bytes) {
+        meterRegistry.counter("github.http.cache.requests", "resource", resource, "result", result).increment();
+        if ("hit".equals(result)) {
+            meterRegistry.counter("github.http.cache.bytes.saved", "resource", resource).increment(bytes);
+        }
+    }
+
+    private byte[] encode(Map<String, List<String>> headers, byte[] body) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(body.length + 512);
+        try (DataOutputStream out = new DataOutputStream(buffer)) {
+            out.writeInt(headers.size());
+            for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+                out.writeUTF(header.getKey());
+                out.writeInt(header.getValue().size());
+                for (String value : header.getValue()) {
+                    out.writeUTF(value);
+                }
+            }
+            out.writeInt(body.length);
+            out.write(body);
+        }
+        return buffer.toByteArray();
+    }
+
+    private CachedResponse decode(byte[] bytes) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            int headerCount = in.readInt();
+            for (int i = 0; i < headerCount; i++) {
+                String name = in.readUTF();
+                int valueCount = in.readInt();
+                List<String> values = new ArrayList<>(valueCount);
+                for (int j = 0; j < valueCount; j++) {
+                    values.add(in.readUTF());
+                }
+                headers.put(name, values);
+            }
+            byte[] body = new byte[in.readInt()];
+            in.readFully(body);
+            return new CachedResponse(headers, body);
+        }
+    }
+
+    /**
+     * Stored headers and body of a previous 200 response
+     */
+    public static class CachedResponse {
+        private final Map<String, List<String>> headers;
+        private final byte[] body;
+
+        public CachedResponse(Map<String, List<String>> headers, byte[] body) {
+            this.headers = headers;
+            this.body = body;
+        }
+
+        public Map<String, List<String>> getHeaders() { return headers; }
+        public byte[] getBody() { return body; }
+
+        public String header(String name) {
+            List<String> values = headers.get(name);
+            return values != null && !values.isEmpty() ? values.get(0) : null;
+        }
+    }
+}
@@ -2,17 +2,33 @@ package com.somdiproy.smartcodereview.service;
 
 import com.somdiproy.smartcodereview.model.Branch;
 import com.somdiproy.smartcodereview.model.Repository;
+import com.somdiproy.smartcodereview.util.FileContent;
+import com.somdiproy.smartcodereview.util.PathFilter;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import jakarta.annotation.PostConstruct;
 import org.kohsuke.github.*;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
 /**
  * Enhanced GitHub API integration service
@@ -38,6 +54,63 @@ public class GitHubService {
     @Value("${analysis.max-files-per-scan:50}")
     private int maxFilesPerScan;
     
+    // "archive" streams the branch zipball once; "contents" fetches each file via the contents API
+    @Value("${github.analysis.ingest-mode:archive}")
+    private String ingestMode;
+    
+    private static final String INGEST_MODE_ARCHIVE = "archive";
+    
+    private static final Pattern COMMIT_SHA = Pattern.compile("[0-9a-fA-F]{40}");
+    
+    // Optional ignore file at the repository root, read on top of analysis.excluded-patterns
+    @Value("${analysis.path-filter.override-file:.smartcodeignore}")
+    private String overrideFileName;
+    
+    private PathFilter pathFilter;
+    
+    // Compiled per-repository filters, keyed by the override file's blob SHA
+    private final Cache<String, PathFilter> overrideFilters = CacheBuilder.newBuilder()
+            .maximumSize(256)
+            .build();
+    
+    @Value("${github.tree-cache.ttl-seconds:300}")
+    private long treeCacheTtlSeconds;
+    
+    @Value("${github.tree-cache.max-entries:1000000}")
+    private long treeCacheMaxEntries;
+    
+    // Recursive trees keyed by repository and commit SHA, weighed by tree entry count
+    private Cache<String, TreeSnapshot> treeSnapshots;
+    
+    @Autowired
+    private GitHubBlobCache blobCache;
+    
+    @Autowired
+    private GitHubDownloadScheduler downloadScheduler;
+    
+    @Autowired
+    private GitHubClientRegistry clientRegistry;
+    
+    @Autowired
+    private FileRiskRanker fileRiskRanker;
+    
+    @Autowired
+    private FileContentStore contentStore;
+    
+    // "risk" ranks eligible files when there are more than max-files-per-scan, "tree" keeps tree order
+    @Value("${analysis.file-selection.strategy:risk}")
+    private String fileSelectionStrategy;
+    
+    @PostConstruct
+    void init() {
+        pathFilter = PathFilter.compile(excludedPatterns, supportedExtensions);
+        treeSnapshots = CacheBuilder.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(treeCacheTtlSeconds))
+                .maximumWeight(treeCacheMaxEntries)
+                .weigher((String key, TreeSnapshot snapshot) -> snapshot.getEntries().size())
+                .build();
+    }
+    
     /**
      * Validate GitHub repository URL format
      */
@@ -193,46 +266,61 @@ public class GitHubService {
      * Fetch code files from specific branch with intelligent filtering
      */
     public List<GitHubFile> fetchBranchCode(String repoUrl, String branch, String accessToken) {
+        return fetchBranchCode(repoUrl, branch, accessToken, null);
+    }
+    
+    /**
+     * Fetch code files from a branch or commit, optionally restricted to the given paths
+     */
+    public List<GitHubFile> fetchBranchCode(String repoUrl, String branch, String accessToken, Set<String> onlyPaths) {
+        return fetchBranchCode(repoUrl, branch, accessToken, onlyPaths, Set.of());
+    }
+    
+    /**
+     * Fetch code files from a branch or commit, optionally restricted to the given paths.
+     * modifiedPaths are files whose content changed since the previous analysis, which rank
+     * higher when the max-files cap applies.
+     */
+    public List<GitHubFile> fetchBranchCode(String repoUrl, String branch, String accessToken, Set<String> onlyPaths,
+                                            Set<String> modifiedPaths) {
+        List<GitHubFile> files = new ArrayList<>();
         try {
             GitHub github = createGitHubClient(accessToken);
             GHRepository ghRepo = getGHRepository(github, repoUrl);
             
             log.info("🔍 Fetching files from {}:{}", repoUrl, branch);
             
-            List<GitHubFile> files = new ArrayList<>();
-            GHTree tree = ghRepo.getTreeRecursive(branch, 1);
+            TreeSnapshot snapshot = treeSnapshot(ghRepo, branch);
+            String ref = snapshot.getCommitSha();
             
             // Filter and process files
-            List<GHTreeEntry> eligibleFiles = tree.getTree().stream()
-                    .filter(entry -> "blob".equals(entry.getType()))
-                    .filter(entry -> shouldProcessFile(entry.getPath()))
-                    .filter(entry -> entry.getSize() <= maxFileSize)
-                    .limit(maxFilesPerScan)
+            List<GHTreeEntry> candidates = snapshot.getEligible().stream()
+                    .filter(entry -> onlyPaths == null || onlyPaths.contains(entry.getPath()))
                     .collect(Collectors.toList());
+            List<GHTreeEntry> eligibleFiles = selectFiles(candidates, modifiedPaths);
             
             log.info("📁 Processing {} eligible files (filtered from {} total)", 
-                     eligibleFiles.size(), tree.getTree().size());
-            
-            // Process files in parallel for better performance
-            List<CompletableFuture<GitHubFile>> futures = eligibleFiles.stream()
-                    .map(entry -> CompletableFuture.supplyAsync(() -> 
-                        fetchFileContent(ghRepo, entry, branch)))
-                    .collect(Collectors.toList());
-            
-            // Wait for all files to be fetched
-            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
-            
-            // Collect results
-            for (CompletableFuture<GitHubFile> future : futures) {
-                try {
-                    GitHubFile file = future.get();
-                    if (file != null) {
-                        files.add(file);
-                    }
-                } catch (Exception e) {
-                    log.warn("⚠️ Failed to fetch file content: {}", e.getMessage());
+                     eligibleFiles.size(), snapshot.getEntries().size());
+            
+            // Serve unchanged blobs from the local cache, download only the rest
+            List<GHTreeEntry> toDownload = new ArrayList<>();
+            for (GHTreeEntry entry : eligibleFiles) {
+                GitHubFile cached = fromBlobCache(entry);
+                if (cached != null) {
+                    files.add(cached);
+                } else {
+                    toDownload.add(entry);
                 }
             }
+            log.info("💾 {} files served from blob cache, {} to download", 
+                     files.size(), toDownload.size());
+            
+            String token = effectiveToken(accessToken);
+            if (INGEST_MODE_ARCHIVE.equalsIgnoreCase(ingestMode)) {
+                files.addAll(fetchFilesFromArchive(github, token, ghRepo, ref, toDownload));
+            } else {
+                files.addAll(fetchFilesIndividually(github, token, ghRepo, ref, toDownload));
+            }
             
             log.info("✅ Successfully fetched {} files from {} branch {}", 
                      files.size(), repoUrl, branch);
@@ -240,10 +328,153 @@ public class GitHubService {
             
         } catch (Exception e) {
             log.error("💥 Failed to fetch code from {} branch {}", repoUrl, branch, e);
+            // Nobody will see the files collected so far, so free their spill files now
+            files.forEach(GitHubFile::release);
             throw new RuntimeException("Failed to fetch code: " + e.getMessage());
         }
     }
     
+    /**
+     * Resolve the commit SHA a branch currently points at, or null if it cannot be resolved
+     */
+    public String resolveCommitSha(String repoUrl, String branch, String accessToken) {
+        try {
+            GitHub github = createGitHubClient(accessToken);
+            GHRepository ghRepo = getGHRepository(github, repoUrl);
+            return ghRepo.getBranch(branch).getSHA1();
+        } catch (Exception e) {
+            log.warn("⚠️ Could not resolve commit SHA for {}:{}: {}", repoUrl, branch, e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Map every eligible file path at a ref (branch name or commit SHA) to its blob SHA
+     */
+    public Map<String, String> getEligibleBlobShas(String repoUrl, String ref, String accessToken) throws IOException {
+        GitHub github = createGitHubClient(accessToken);
+        GHRepository ghRepo = getGHRepository(github, repoUrl);
+        Map<String, String> blobShas = new LinkedHashMap<>();
+        treeSnapshot(ghRepo, ref).getEligible()
+                .forEach(entry -> blobShas.put(entry.getPath(), entry.getSha()));
+        return blobShas;
+    }
+    
+    /**
+     * Fetch file contents one by one through the contents API.
+     * Downloads are queued on the token's lane of the download scheduler, which
+     * bounds concurrency and handles retries and GitHub rate limit back-off.
+     */
+    private List<GitHubFile> fetchFilesIndividually(GitHub github, String token, GHRepository ghRepo, 
+                                                    String branch, List<GHTreeEntry> entries) {
+        List<GitHubFile> files = new ArrayList<>();
+        
+        List<CompletableFuture<GitHubFile>> futures = entries.stream()
+                .map(entry -> downloadScheduler.submit(token, () -> 
+                    fetchFileContent(ghRepo, entry, branch)))
+                .collect(Collectors.toList());
+        
+        // Collect results, a failed file does not fail the scan
+        long waitUntil = System.currentTimeMillis() + downloadScheduler.maxWaitMillis();
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                long remaining = Math.max(0, waitUntil - System.currentTimeMillis());
+                files.add(futures.get(i).get(remaining, TimeUnit.MILLISECONDS));
+            } catch (TimeoutException e) {
+                // The scheduler drops queued tasks whose caller stopped waiting
+                futures.get(i).cancel(false);
+                log.warn("⏰ Gave up waiting for file {}", entries.get(i).getPath());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.subList(i, futures.size()).forEach(future -> future.cancel(false));
+                log.warn("⚠️ Interrupted while fetching files, keeping {} of {}", files.size(), futures.size());
+                break;
+            } catch (Exception e) {
+                log.warn("⚠️ Failed to fetch file {}: {}", entries.get(i).getPath(), 
+                         e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+            }
+        }
+        return files;
+    }
+    
+    /**
+     * Download the branch zipball once and stream-decompress the eligible entries.
+     * Entries are filtered as they stream past, so the archive is never held in memory.
+     * Anything the archive did not yield, including entries after a failed download,
+     * is fetched through the contents API.
+     */
+    private List<GitHubFile> fetchFilesFromArchive(GitHub github, String token, GHRepository ghRepo, 
+                                                   String branch, List<GHTreeEntry> entries) {
+        Map<String, GHTreeEntry> wanted = new LinkedHashMap<>();
+        entries.forEach(entry -> wanted.put(entry.getPath(), entry));
+        
+        List<GitHubFile> files = new ArrayList<>();
+        if (wanted.isEmpty()) {
+            return files;
+        }
+        
+        long startTime = System.currentTimeMillis();
+        try {
+            ghRepo.readZip(in -> {
+                readArchiveEntries(in, wanted, files);
+                return null;
+            }, branch);
+            log.info("📦 Streamed {} files from archive of {}:{} in {}ms", 
+                     files.size(), ghRepo.getFullName(), branch, System.currentTimeMillis() - startTime);
+        } catch (IOException | RuntimeException e) {
+            // Entries streamed before the failure are complete, keep them
+            log.warn("⚠️ Archive download failed for {}:{} after {} files, fetching the rest individually: {}", 
+                     ghRepo.getFullName(), branch, files.size(), e.getMessage());
+        }
+        
+        Set<String> found = files.stream().map(GitHubFile::getPath).collect(Collectors.toSet());
+        List<GHTreeEntry> missing = entries.stream()
+                .filter(entry -> !found.contains(entry.getPath()))
+                .collect(Collectors.toList());
+        if (!missing.isEmpty()) {
+            log.info("🔁 {} eligible files were not in the archive, fetching individually", missing.size());
+            files.addAll(fetchFilesIndividually(github, token, ghRepo, branch, missing));
+        }
+        return files;
+    }
+    
+    /**
+     * Walk the zip stream and collect the wanted entries, stopping once all are found.
+     * Collected entries are removed from wanted, so a retried download does not add them twice.
+     */
+    private void readArchiveEntries(InputStream in, Map<String, GHTreeEntry> wanted, 
+                                    List<GitHubFile> files) throws IOException {
+        try (ZipInputStream zip = new ZipInputStream(new BufferedInputStream(in))) {
+            ZipEntry zipEntry;
+            while (!wanted.isEmpty() && (zipEntry = zip.getNextEntry()) != null) {
+                if (zipEntry.isDirectory()) continue;
+                
+                String path = stripArchiveRoot(zipEntry.getName());
+                GHTreeEntry entry = wanted.get(path);
+                if (entry == null) continue;
+                if (zipEntry.getSize() > maxFileSize) continue;
+                
+                FileContent content = contentStore.store(zip, maxFileSize);
+                if (content == null) {
+                    log.debug("Skipping oversized archive entry: {}", path);
+                    continue;
+                }
+                
+                blobCache.putContent(entry.getSha(), content);
+                files.add(toGitHubFile(entry, content));
+                wanted.remove(path);
+            }
+        }
+    }
+    
+    /**
+     * Zipball entries are prefixed with a single "{owner}-{repo}-{sha}/" directory
+     */
+    private String stripArchiveRoot(String entryName) {
+        int firstSlash = entryName.indexOf('/');
+        return firstSlash >= 0 ? entryName.substring(firstSlash + 1) : entryName;
+    }
+    
     /**
      * Get file content statistics for analysis planning
      */
@@ -254,16 +485,16 @@ public class GitHubService {
             GitHub github = createGitHubClient(accessToken);
             GHRepository ghRepo = getGHRepository(github, repoUrl);
             
-            GHTree tree = ghRepo.getTreeRecursive(branch, 1);
-            log.info("📁 Found {} total entries in branch: {}", tree.getTree().size(), branch);
+            TreeSnapshot snapshot = treeSnapshot(ghRepo, branch);
+            log.info("📁 Found {} total entries in branch: {}", snapshot.getEntries().size(), branch);
             
             Map<String, Integer> languageStats = new HashMap<>();
             Map<String, Integer> sizeDistribution = new HashMap<>();
             int totalFiles = 0;
-            int eligibleFiles = 0;
+            int eligibleFiles = snapshot.getEligible().size();
             long totalSize = 0;
             
-            for (GHTreeEntry entry : tree.getTree()) {
+            for (GHTreeEntry entry : snapshot.getEntries()) {
                 if (!"blob".equals(entry.getType())) continue;
                 
                 totalFiles++;
@@ -274,10 +505,6 @@ public class GitHubService {
                 
                 String sizeCategory = categorizeSizeSize(entry.getSize());
                 sizeDistribution.merge(sizeCategory, 1, Integer::sum);
-                
-                if (shouldProcessFile(entry.getPath()) && entry.getSize() <= maxFileSize) {
-                    eligibleFiles++;
-                }
             }
             
             return FileAnalysisStats.builder()
@@ -297,57 +524,62 @@ public class GitHubService {
     }
     
     /**
-     * Fetch content of a single file with retry logic
+     * Fetch content of a single file, retries are left to the download scheduler
      */
-    private GitHubFile fetchFileContent(GHRepository repo, GHTreeEntry entry, String branch) {
-        int maxRetries = 3;
-        
-        for (int attempt = 1; attempt <= maxRetries; attempt++) {
-            try {
-                GHContent content = repo.getFileContent(entry.getPath(), branch);
-                
-                return GitHubFile.builder()
-                        .path(entry.getPath())
-                        .name(getFileName(entry.getPath()))
-                        .content(content.getContent())
-                        .size(entry.getSize())
-                        .sha(entry.getSha())
-                        .language(detectLanguage(entry.getPath()))
-                        .build();
-                        
-            } catch (Exception e) {
-                if (attempt == maxRetries) {
-                    log.warn("⚠️ Failed to fetch file after {} attempts: {}", maxRetries, entry.getPath());
-                    return null;
-                }
-                
-                try {
-                    Thread.sleep(1000 * attempt); // Exponential backoff
-                } catch (InterruptedException ie) {
-                    Thread.currentThread().interrupt();
-                    return null;
-                }
-            }
+    private GitHubFile fetchFileContent(GHRepository repo, GHTreeEntry entry, String branch) throws IOException {
+        GHContent content = repo.getFileContent(entry.getPath(), branch);
+        FileContent stored;
+        try (InputStream in = content.read()) {
+            stored = contentStore.store(in, maxFileSize);
         }
+        if (stored == null) {
+            throw new IOException("File " + entry.getPath() + " is larger than " + maxFileSize + " bytes");
+        }
+        blobCache.putContent(entry.getSha(), stored);
         
-        return null;
+        return toGitHubFile(entry, stored);
     }
     
     /**
-     * Enhanced file filtering logic
+     * File served from the blob cache, or null when it is not cached or cannot be read
      */
-    private boolean shouldProcessFile(String path) {
-        // Check excluded patterns first (more efficient)
-        for (String pattern : excludedPatterns) {
-            String regex = pattern.replace("**", ".*").replace("*", "[^/]*");
-            if (path.matches(regex)) {
-                return false;
-            }
+    private GitHubFile fromBlobCache(GHTreeEntry entry) {
+        Optional<InputStream> cached = blobCache.openStream(entry.getSha());
+        if (cached.isEmpty()) {
+            return null;
         }
-        
-        // Check file extension
-        String extension = getFileExtension(path);
-        if (!supportedExtensions.contains(extension)) {
+        try (InputStream in = cached.get()) {
+            FileContent content = contentStore.store(in, maxFileSize);
+            return content != null ? toGitHubFile(entry, content) : null;
+        } catch (IOException e) {
+            log.debug("Could not read cached blob {}: {}", entry.getSha(), e.getMessage());
+            return null;
+        }
+    }
+    
+    private GitHubFile toGitHubFile(GHTreeEntry entry, FileContent content) {
+        return GitHubFile.builder()
+                .path(entry.getPath())
+                .name(getFileName(entry.getPath()))
+                .content(content)
+                .size(entry.getSize())
+                .sha(entry.getSha())
+                .language(detectLanguage(entry.getPath()))
+                .build();
+    }
+    
+    private boolean isEligible(GHTreeEntry entry, PathFilter filter) {
+        return "blob".equals(entry.getType()) 
+                && shouldProcessFile(entry.getPath(), filter) 
+                && entry.getSize() <= maxFileSize;
+    }
+    
+    /**
+     * Enhanced file filtering logic
+     */
+    private boolean shouldProcessFile(String path, PathFilter filter) {
+        // Excluded patterns and supported extensions, precompiled
+        if (!filter.accepts(path)) {
             return false;
         }
         
@@ -367,46 +599,118 @@ public class GitHubService {
     }
     
     /**
-     * Create GitHub client with fallback options
+     * Apply the max-files-per-scan cap, ranking by risk so the budget goes where findings are likely.
+     * Files modified since the previous analysis count as recently changed.
+     */
+    private List<GHTreeEntry> selectFiles(List<GHTreeEntry> candidates, Set<String> modifiedPaths) {
+        if (candidates.size() <= maxFilesPerScan) {
+            return candidates;
+        }
+        if (!"risk".equalsIgnoreCase(fileSelectionStrategy)) {
+            return candidates.subList(0, maxFilesPerScan);
+        }
+        
+        List<GHTreeEntry> selected = fileRiskRanker.selectTop(candidates, maxFilesPerScan, 
+                entry -> modifiedPaths.contains(entry.getPath()));
+        log.info("🎯 Selected {} highest-risk files out of {} eligible", selected.size(), candidates.size());
+        return selected;
+    }
+    
+    /**
+     * Recursive tree for a branch or commit, shared between stats and fetching.
+     * Branch names are resolved to their commit SHA so a snapshot never goes stale.
      */
+    private TreeSnapshot treeSnapshot(GHRepository ghRepo, String ref) throws IOException {
+        String commitSha = COMMIT_SHA.matcher(ref).matches() ? ref : ghRepo.getBranch(ref).getSHA1();
+        String key = ghRepo.getFullName() + "@" + commitSha;
+        
+        try {
+            return treeSnapshots.get(key, () -> {
+                GHTree tree = ghRepo.getTreeRecursive(commitSha, 1);
+                PathFilter filter = pathFilterFor(ghRepo, tree);
+                List<GHTreeEntry> eligible = tree.getTree().stream()
+                        .filter(entry -> isEligible(entry, filter))
+                        .collect(Collectors.toList());
+                return new TreeSnapshot(commitSha, tree.getTree(), eligible);
+            });
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Failed to load tree for " + key, e.getCause());
+        }
+    }
+    
     /**
-     * Create GitHub client for public repositories only
+     * Path filter for a tree, including the repository's own override file if it has one
+     */
+    private PathFilter pathFilterFor(GHRepository ghRepo, GHTree tree) {
+        GHTreeEntry overrideFile = tree.getEntry(overrideFileName);
+        if (overrideFile == null || !"blob".equals(overrideFile.getType())) {
+            return pathFilter;
+        }
+        
+        try {
+            return overrideFilters.get(overrideFile.getSha(), () -> {
+                String content = blobCache.get(overrideFile.getSha()).orElse(null);
+                if (content == null) {
+                    try (InputStream in = ghRepo.getBlob(overrideFile.getSha()).read()) {
+                        content = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                    }
+                    blobCache.put(overrideFile.getSha(), content);
+                }
+                List<String> overrides = PathFilter.parseIgnoreFile(content);
+                log.info("📝 Applying {} path filter overrides from {} in {}", 
+                         overrides.size(), overrideFileName, ghRepo.getFullName());
+                return pathFilter.withOverrides(overrides);
+            });
+        } catch (Exception e) {
+            log.warn("⚠️ Could not read {} from {}, using default filters: {}", 
+                     overrideFileName, ghRepo.getFullName(), e.getMessage());
+            return pathFilter;
+        }
+    }
+    
+    /**
+     * Get the pooled GitHub client for the configured token, or the user's token
      */
     private GitHub createGitHubClient(String accessToken) throws IOException {
         // Use default token if available
         if (StringUtils.hasText(defaultGithubToken)) {
             try {
-                GitHub github = new GitHubBuilder().withOAuthToken(defaultGithubToken).build();
-                github.getRateLimit();
-                log.info("🔑 Using configured GitHub token for API access");
-                return github;
+                return clientRegistry.clientFor(defaultGithubToken);
             } catch (Exception e) {
-                log.warn("⚠️ Default GitHub token is invalid, using anonymous access");
+                log.warn("⚠️ Default GitHub token is invalid, falling back to user token");
             }
         }
         
-        
-         // No anonymous access - token is required
-     // User token is required - no anonymous access
+        // User token is required - no anonymous access
         if (!StringUtils.hasText(accessToken)) {
             throw new IOException("GitHub personal access token is required. Please provide a valid token to access repositories.");
         }
 
+        GitHub github;
         try {
-            GitHub github = new GitHubBuilder().withOAuthToken(accessToken).build();
-            GHRateLimit rateLimit = github.getRateLimit();
-            log.info("🔑 Using user-provided GitHub token. Rate limit: {}/{}", 
-                     rateLimit.getRemaining(), rateLimit.getLimit());
-            
-            if (rateLimit.getRemaining() < 10) {
-                throw new IOException("GitHub rate limit nearly exceeded. Please wait before making more requests.");
-            }
-            
-            return github;
+            github = clientRegistry.clientFor(accessToken);
         } catch (Exception e) {
             log.error("Failed to authenticate with GitHub token", e);
             throw new IOException("Invalid GitHub token or authentication failed. Please check your token and try again.");
         }
+        
+        // Rate limit as reported by the last response, no extra API call
+        GHRateLimit.Record rateLimit = clientRegistry.lastCoreRateLimit(accessToken);
+        if (rateLimit != null && !rateLimit.isExpired() && rateLimit.getRemaining() < 10) {
+            throw new IOException("GitHub rate limit nearly exceeded. Please wait before making more requests.");
+        }
+        
+        return github;
+    }
+    
+    /**
+     * Token the client for this request authenticates with
+     */
+    private String effectiveToken(String accessToken) {
+        return StringUtils.hasText(defaultGithubToken) ? defaultGithubToken : accessToken;
     }
     
     /**
@@ -479,13 +783,32 @@ public class GitHubService {
         return (totalTokens / 1_000_000.0) * 0.80; // Nova Premier price
     }
     
+    /**
+     * Recursive tree of one commit with its eligible entries already filtered
+     */
+    private static class TreeSnapshot {
+        private final String commitSha;
+        private final List<GHTreeEntry> entries;
+        private final List<GHTreeEntry> eligible;
+        
+        private TreeSnapshot(String commitSha, List<GHTreeEntry> entries, List<GHTreeEntry> eligible) {
+            this.commitSha = commitSha;
+            this.entries = entries;
+            this.eligible = Collections.unmodifiableList(eligible);
+        }
+        
+        public String getCommitSha() { return commitSha; }
+        public List<GHTreeEntry> getEntries() { return entries; }
+        public List<GHTreeEntry> getEligible() { return eligible; }
+    }
+    
     /**
      * GitHubFile data class with enhanced features
      */
     public static class GitHubFile {
         private String path;
         private String name;
-        private String content;
+        private FileContent content;
         private long size;
         private String sha;
         private String language;
@@ -512,8 +835,24 @@ public class GitHubService {
         public String getName() { return name; }
         public void setName(String name) { this.name = name; }
         
-        public String getContent() { return content; }
-        public void setContent(String content) { this.content = content; }
+        /**
+         * Decoded content; use openContentStream() to avoid copying large files onto the heap
+         */
+        public String getContent() { return content != null ? content.asString() : null; }
+        public void setContent(String content) { this.content = FileContent.of(content); }
+        
+        public FileContent getContentData() { return content; }
+        public InputStream openContentStream() { return content.openStream(); }
+        public int getContentLength() { return content != null ? content.length() : 0; }
+        
+        /**
+         * Free the content's backing storage once the analysis is done with it
+         */
+        public void release() {
+            if (content != null) {
+                content.release();
+            }
+        }
         
         public long getSize() { return size; }
         public void setSize(long size) { this.size = size; }
@@ -535,13 +874,15 @@ public class GitHubService {
         }
         
         public static class Builder {
-            private String path, name, content, sha, language, mimeType;
+            private String path, name, sha, language, mimeType;
+            private FileContent content;
             private long size;
             private boolean isBinary;
             
             public Builder path(String path) { this.path = path; return this; }
             public Builder name(String name) { this.name = name; return this; }
-            public Builder content(String content) { this.content = content; return this; }
+            public Builder content(String content) { this.content = FileContent.of(content); return this; }
+            public Builder content(FileContent content) { this.content = content; return this; }
             public Builder size(long size) { this.size = size; return this; }
             public Builder sha(String sha) { this.sha = sha; return this; }
             public Builder language(String language) { this.language = language; return this; }
@@ -0,0 +1,38 @@
+package com.somdiproy.smartcodereview.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
+import java.io.InputStream;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-local claim-check store for development and tests without S3
+ */
+public class InMemoryClaimCheckStore implements ClaimCheckStore {
+
+    private final ConcurrentHashMap<String, byte[]> objects = new ConcurrentHashMap<>();
+
+    @Override
+    public String location() {
+        return "memory";
+    }
+
+    @Override
+    public void put(String key, byte[] data) {
+        objects.put(key, data);
+    }
+
+    @Override
+    public InputStream open(String key) throws FileNotFoundException {
+        byte[] data = objects.get(key);
+        if (data == null) {
+            throw new FileNotFoundException("No claim-check object " + key);
+        }
+        return new ByteArrayInputStream(data);
+    }
+
+    @Override
+    public void delete(String key) {
+        objects.remove(key);
+    }
+}
@@ -0,0 +1,44 @@
+package com.somdiproy.smartcodereview.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Process-local completion queue for development and tests without SQS.
+ * Released messages go back on the queue with their receive count incremented.
+ */
+public class InMemoryCompletionQueue implements CompletionQueue {
+
+    private final LinkedBlockingQueue<Message> messages = new LinkedBlockingQueue<>();
+
+    /**
+     * Enqueue a notification as a Lambda function would
+     */
+    public void publish(String body) {
+        messages.add(new Message(body, UUID.randomUUID().toString(), 1));
+    }
+
+    @Override
+    public List<Message> receive(int maxMessages, int waitSeconds) throws InterruptedException {
+        List<Message> received = new ArrayList<>();
+        Message first = messages.poll(waitSeconds, TimeUnit.SECONDS);
+        if (first != null) {
+            received.add(first);
+            messages.drainTo(received, maxMessages - 1);
+        }
+        return received;
+    }
+
+    @Override
+    public void delete(Message message) {
+        // Already removed when received
+    }
+
+    @Override
+    public void release(Message message) {
+        messages.add(new Message(message.getBody(), message.getReceiptHandle(), message.getReceiveCount() + 1));
+    }
+}
@@ -0,0 +1,168 @@
+package com.somdiproy.smartcodereview.service;
+
+import com.somdiproy.smartcodereview.model.AnalysisResult;
+import com.somdiproy.smartcodereview.model.Issue;
+import com.somdiproy.smartcodereview.repository.AnalysisRepository;
+import com.somdiproy.smartcodereview.repository.IssueDetailsRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Plans diff-only rescans against the last completed analysis of the same repository branch.
+ * A file is unchanged when the previous analysis detected the same blob or screening passed it
+ * over; every other file, including ones that analysis never got to, goes through screening and
+ * detection. Issues found in unchanged files are carried forward from the previous analysis.
+ */
+@Service
+public class IncrementalScanService {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(IncrementalScanService.class);
+
+    private final AnalysisRepository analysisRepository;
+    private final IssueDetailsRepository issueDetailsRepository;
+    private final GitHubService gitHubService;
+
+    @Value("${analysis.incremental.enabled:true}")
+    private boolean enabled;
+
+    @Autowired
+    public IncrementalScanService(AnalysisRepository analysisRepository,
+                                  IssueDetailsRepository issueDetailsRepository,
+                                  GitHubService gitHubService) {
+        this.analysisRepository = analysisRepository;
+        this.issueDetailsRepository = issueDetailsRepository;
+        this.gitHubService = gitHubService;
+    }
+
+    /**
+     * Build an incremental plan for the given commit, or return null when a full scan is needed
+     */
+    public IncrementalScanPlan plan(String repoUrl, String branch, String commitSha, String accessToken) {
+        if (!enabled || commitSha == null) {
+            return null;
+        }
+
+        try {
+            Optional<AnalysisResult> previous = analysisRepository.findLatestCompletedByRepositoryAndBranch(repoUrl, branch);
+            if (previous.isEmpty()) {
+                log.info("📋 No previous analysis for {}:{}, running full scan", repoUrl, branch);
+                return null;
+            }
+
+            AnalysisResult baseline = previous.get();
+            String previousSha = baseline.getBranchSHA();
+
+            // Diff against the files the baseline actually finished, detected or screened out, not against
+            // its whole tree: files left out by the max-files cap or whose screening or detection failed
+            // were never scanned and have no issues to carry forward
+            Map<String, String> detectedShas = baseline.getDetectedBlobShas();
+            Map<String, String> currentShas = gitHubService.getEligibleBlobShas(repoUrl, commitSha, accessToken);
+
+            Set<String> changedPaths = new LinkedHashSet<>();
+            Set<String> modifiedPaths = new LinkedHashSet<>();
+            Map<String, String> unchangedShas = new LinkedHashMap<>();
+            currentShas.forEach((path, sha) -> {
+                String previousBlobSha = detectedShas.get(path);
+                if (sha.equals(previousBlobSha)) {
+                    unchangedShas.put(path, sha);
+                } else {
+                    changedPaths.add(path);
+                    if (previousBlobSha != null) {
+                        modifiedPaths.add(path);
+                    }
+                }
+            });
+            Set<String> unchangedPaths = unchangedShas.keySet();
+
+            List<Map<String, Object>> carriedIssues = issueDetailsRepository.findByAnalysisId(baseline.getAnalysisId())
+                    .stream()
+                    .filter(issue -> unchangedPaths.contains(issue.getFile()))
+                    .map(issue -> toIssueMap(issue, baseline.getAnalysisId()))
+                    .collect(Collectors.toList());
+
+            log.info("🔁 Incremental scan of {}:{} against analysis {} ({} -> {}): {} changed, {} unchanged, {} issues carried forward",
+                     repoUrl, branch, baseline.getAnalysisId(), previousSha, commitSha,
+                     changedPaths.size(), unchangedPaths.size(), carriedIssues.size());
+
+            return new IncrementalScanPlan(baseline.getAnalysisId(), previousSha, changedPaths, modifiedPaths,
+                                           unchangedShas, carriedIssues);
+
+        } catch (Exception e) {
+            log.warn("⚠️ Could not plan incremental scan for {}:{}, running full scan: {}", repoUrl, branch, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Convert a stored issue back into the detection result shape used by the pipeline
+     */
+    private Map<String, Object> toIssueMap(Issue issue, String previousAnalysisId) {
+        Map<String, Object> issueMap = new LinkedHashMap<>();
+        putIfPresent(issueMap, "id", issue.getIssueId());
+        putIfPresent(issueMap, "type", issue.getType());
+        putIfPresent(issueMap, "title", issue.getTitle());
+        putIfPresent(issueMap, "description", issue.getDescription());
+        putIfPresent(issueMap, "severity", issue.getSeverity());
+        putIfPresent(issueMap, "category", issue.getCategory());
+        putIfPresent(issueMap, "file", issue.getFile());
+        putIfPresent(issueMap, "line", issue.getLine());
+        putIfPresent(issueMap, "column", issue.getColumn());
+        putIfPresent(issueMap, "code", issue.getCode());
+        putIfPresent(issueMap, "language", issue.getLanguage());
+        putIfPresent(issueMap, "cwe", issue.getCwe());
+        putIfPresent(issueMap, "cvssScore", issue.getCvssScore());
+        putIfPresent(issueMap, "cveId", issue.getCveId());
+        putIfPresent(issueMap, "cveScore", issue.getCveScore());
+        issueMap.put("carriedForwardFrom", previousAnalysisId);
+        return issueMap;
+    }
+
+    private void putIfPresent(Map<String, Object> map, String key, Object value) {
+        if (value != null) {
+            map.put(key, value);
+        }
+    }
+
+    /**
+     * Result of diffing the current tree against the previous analysis
+     */
+    public static class IncrementalScanPlan {
+        private final String previousAnalysisId;
+        private final String previousCommitSha;
+        private final Set<String> changedPaths;
+        private final Set<String> modifiedPaths;
+        private final Map<String, String> unchangedBlobShas;
+        private final List<Map<String, Object>> carriedIssues;
+
+        public IncrementalScanPlan(String previousAnalysisId, String previousCommitSha, Set<String> changedPaths,
+                                   Set<String> modifiedPaths, Map<String, String> unchangedBlobShas,
+                                   List<Map<String, Object>> carriedIssues) {
+            this.previousAnalysisId = previousAnalysisId;
+            this.previousCommitSha = previousCommitSha;
+            this.changedPaths = Collections.unmodifiableSet(changedPaths);
+            this.modifiedPaths = Collections.unmodifiableSet(modifiedPaths);
+            this.unchangedBlobShas = Collections.unmodifiableMap(unchangedBlobShas);
+            this.carriedIssues = carriedIssues;
+        }
+
+        public String getPreviousAnalysisId() { return previousAnalysisId; }
+        public String getPreviousCommitSha() { return previousCommitSha; }
+        public Set<String> getChangedPaths() { return changedPaths; }
+        /** Changed paths the previous analysis scanned under another blob SHA, as opposed to never-scanned ones */
+        public Set<String> getModifiedPaths() { return modifiedPaths; }
+        public Set<String> getUnchangedPaths() { return unchangedBlobShas.keySet(); }
+        /** Path to blob SHA of the unchanged files, which count as detected in the new analysis too */
+        public Map<String, String> getUnchangedBlobShas() { return unchangedBlobShas; }
+        public List<Map<String, Object>> getCarriedIssues() { return carriedIssues; }
+    }
+}
@@ -0,0 +1,176 @@
+package com.somdiproy.smartcodereview.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.somdiproy.smartcodereview.dto.LambdaFileInput;
+import com.somdiproy.smartcodereview.util.JsonPayloadWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Splits Lambda stage inputs into batches by payload size rather than item count.
+ * Each item is measured by its JSON size and an estimated token count, then
+ * packed first-fit-decreasing into as few batches as fit under the configured ceilings.
+ * An item that exceeds a ceiling on its own still gets a batch of its own.
+ * With claim-check enabled, detection batches are no longer bound by the inline payload
+ * ceilings and are packed up to the claim-check ceiling instead.
+ */
+@Component
+public class LambdaBatchPlanner {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(LambdaBatchPlanner.class);
+
+    // Room for the batch envelope (session, analysis, batchInfo, ...) around the items
+    private static final long ENVELOPE_BYTES = 1024;
+
+    // Rough bytes-per-token ratio for source code sent to Nova
+    private static final double BYTES_PER_TOKEN = 4.0;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Autowired
+    private LambdaPayloadOffloader payloadOffloader;
+
+    @Value("${aws.lambda.batch.screening.max-payload:200000}")
+    private long screeningMaxPayload;
+
+    @Value("${aws.lambda.batch.screening.max-files:50}")
+    private int screeningMaxFiles;
+
+    @Value("${aws.lambda.batch.detection.max-payload:30000}")
+    private long detectionMaxPayload;
+
+    @Value("${aws.lambda.batch.detection.max-tokens:8000}")
+    private long detectionMaxTokens;
+
+    @Value("${aws.lambda.batch.detection.size:3}")
+    private int detectionMaxFiles;
+
+    // Offloaded batches only pass a pointer through Lambda, so the inline limits do not apply
+    @Value("${aws.lambda.batch.detection.claim-check.max-payload:8388608}") // 8MB default
+    private long detectionClaimCheckMaxPayload;
+
+    @Value("${aws.lambda.batch.group-by-language:false}")
+    private boolean groupByLanguage;
+
+    public <T> List<List<T>> planScreening(List<T> items) {
+        return plan(items, screeningMaxPayload, Long.MAX_VALUE, screeningMaxFiles);
+    }
+
+    public <T> List<List<T>> planDetection(List<T> items) {
+        if (payloadOffloader.isEnabled()) {
+            long maxBytes = Math.max(detectionMaxPayload, detectionClaimCheckMaxPayload);
+            long maxTokens = Math.max(detectionMaxTokens, (long) Math.ceil(maxBytes / BYTES_PER_TOKEN));
+            return plan(items, maxBytes, maxTokens, detectionMaxFiles);
+        }
+        return plan(items, detectionMaxPayload, detectionMaxTokens, detectionMaxFiles);
+    }
+
+    /**
+     * First-fit-decreasing packing under byte, token and item-count ceilings
+     */
+    public <T> List<List<T>> plan(List<T> items, long maxBytes, long maxTokens, int maxItems) {
+        if (items.isEmpty()) {
+            return new ArrayList<>();
+        }
+        long byteBudget = Math.max(1, maxBytes - ENVELOPE_BYTES);
+        int itemBudget = Math.max(1, maxItems);
+
+        List<Sized<T>> sized = new ArrayList<>(items.size());
+        for (T item : items) {
+            long bytes = serializedSize(item);
+            sized.add(new Sized<>(item, bytes, (long) Math.ceil(bytes / BYTES_PER_TOKEN)));
+        }
+
+        List<Bin<T>> bins = new ArrayList<>();
+        for (List<Sized<T>> group : groups(sized)) {
+            group.sort(Comparator.comparingLong((Sized<T> s) -> s.bytes).reversed());
+            List<Bin<T>> groupBins = new ArrayList<>();
+            for (Sized<T> item : group) {
+                Bin<T> target = null;
+                for (Bin<T> bin : groupBins) {
+                    if (bin.fits(item, byteBudget, maxTokens, itemBudget)) {
+                        target = bin;
+                        break;
+                    }
+                }
+                if (target == null) {
+                    target = new Bin<>();
+                    groupBins.add(target);
+                }
+                target.add(item);
+            }
+            bins.addAll(groupBins);
+        }
+
+        List<List<T>> batches = new ArrayList<>(bins.size());
+        bins.forEach(bin -> batches.add(bin.items));
+        log.debug("📦 Packed {} items into {} batches (max {} bytes, {} tokens, {} items)",
+                  items.size(), batches.size(), maxBytes, maxTokens, itemBudget);
+        return batches;
+    }
+
+    private <T> List<List<Sized<T>>> groups(List<Sized<T>> sized) {
+        if (!groupByLanguage) {
+            return List.of(new ArrayList<>(sized));
+        }
+        Map<String, List<Sized<T>>> byLanguage = new LinkedHashMap<>();
+        for (Sized<T> item : sized) {
+            byLanguage.computeIfAbsent(languageOf(item.item), k -> new ArrayList<>()).add(item);
+        }
+        return new ArrayList<>(byLanguage.values());
+    }
+
+    private String languageOf(Object item) {
+        Object language = null;
+        if (item instanceof LambdaFileInput) {
+            language = ((LambdaFileInput) item).language();
+        } else if (item instanceof Map) {
+            language = ((Map<?, ?>) item).get("language");
+        }
+        return Objects.toString(language, "unknown");
+    }
+
+    /**
+     * JSON size of one item, computed from the values without serializing them
+     */
+    private long serializedSize(Object item) {
+        // Separator between items in the files array
+        return JsonPayloadWriter.sizeOf(objectMapper, item) + 1;
+    }
+
+    private static class Sized<T> {
+        private final T item;
+        private final long bytes;
+        private final long tokens;
+
+        private Sized(T item, long bytes, long tokens) {
+            this.item = item;
+            this.bytes = bytes;
+            this.tokens = tokens;
+        }
+    }
+
+    private static class Bin<T> {
+        private final List<T> items = new ArrayList<>();
+        private long bytes;
+        private long tokens;
+
+        private boolean fits(Sized<T> item, long maxBytes, long maxTokens, int maxItems) {
+            return items.size() < maxItems && bytes + item.bytes <= maxBytes && tokens + item.tokens <= maxTokens;
+        }
+
+        private void add(Sized<T> item) {
+            items.add(item.item);
+            bytes += item.bytes;
+            tokens += item.tokens;
+        }
+    }
+}
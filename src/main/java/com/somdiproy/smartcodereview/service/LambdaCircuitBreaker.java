@@ -0,0 +1,155 @@
+package com.somdiproy.smartcodereview.service;
+
+import com.somdiproy.smartcodereview.util.LambdaStages;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Circuit breakers for the Lambda stages, one resilience4j breaker per stage (lambda-screening,
+ * lambda-detection, lambda-suggestions) with batch variants sharing it. Thresholds, windows and
+ * health reporting come from the resilience4j.circuitbreaker.configs.lambda properties.
+ * Calls are settled through a Permission because the pipeline is future-based rather than
+ * decorated; each permission belongs to the state it was granted in, and outcomes of calls
+ * granted before the last transition are ignored, so a slow call from before an open period
+ * cannot decide a half-open trial. States are also exported as the lambda.circuit.state gauge.
+ */
+@Component
+public class LambdaCircuitBreaker {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(LambdaCircuitBreaker.class);
+
+    private static final String CONFIG = "lambda";
+
+    private final CircuitBreakerRegistry registry;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Breaker> breakers = new ConcurrentHashMap<>();
+
+    public LambdaCircuitBreaker(CircuitBreakerRegistry registry, MeterRegistry meterRegistry) {
+        this.registry = registry;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Take permission for one call; null while open, or when all half-open trials are taken.
+     * A granted call must be settled with onSuccess, onError or release on the permission.
+     */
+    public Permission tryAcquirePermission(String operation) {
+        Breaker breaker = breakerFor(operation);
+        if (!breaker.circuitBreaker.tryAcquirePermission()) {
+            return null;
+        }
+        // Read after acquiring, so a transition made by this very acquisition counts as granted in the new state
+        return new Permission(breaker, breaker.generation.get());
+    }
+
+    /**
+     * Whether calls are currently being rejected, without taking a trial permit
+     */
+    public boolean isOpen(String operation) {
+        CircuitBreaker.State state = getState(operation);
+        return state == CircuitBreaker.State.OPEN || state == CircuitBreaker.State.FORCED_OPEN;
+    }
+
+    public CircuitBreaker.State getState(String operation) {
+        return breakerFor(operation).circuitBreaker.getState();
+    }
+
+    /**
+     * Number of breakers currently open or half-open
+     */
+    public long openCount() {
+        return breakers.values().stream()
+                .map(b -> b.circuitBreaker.getState())
+                .filter(s -> s == CircuitBreaker.State.OPEN || s == CircuitBreaker.State.FORCED_OPEN
+                        || s == CircuitBreaker.State.HALF_OPEN)
+                .count();
+    }
+
+    /**
+     * Batch variants such as "detection_batch" share the base operation's breaker
+     */
+    private Breaker breakerFor(String operation) {
+        return breakers.computeIfAbsent(LambdaStages.stageOf(operation), Breaker::new);
+    }
+
+    private class Breaker {
+        private final CircuitBreaker circuitBreaker;
+        // Bumped on every transition, so late outcomes from an earlier state can be told apart
+        private final AtomicLong generation = new AtomicLong();
+
+        private Breaker(String operation) {
+            // Instances listed in the properties already exist; any other stage gets the shared config
+            this.circuitBreaker = registry.circuitBreaker("lambda-" + operation, CONFIG);
+            circuitBreaker.getEventPublisher().onStateTransition(event -> {
+                generation.incrementAndGet();
+                log.warn("🔌 Circuit breaker for operation {}: {}", operation, event.getStateTransition());
+            });
+            Gauge.builder("lambda.circuit.state", circuitBreaker, cb -> cb.getState().getOrder())
+                    .tag("operation", operation)
+                    .description("0 closed, 1 open, 2 half-open")
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Permission for one call, tied to the breaker state it was granted in
+     */
+    public static class Permission {
+        private final Breaker breaker;
+        private final long generation;
+        private final AtomicBoolean settled = new AtomicBoolean();
+
+        private Permission(Breaker breaker, long generation) {
+            this.breaker = breaker;
+            this.generation = generation;
+        }
+
+        public void onSuccess(long durationMs) {
+            if (settled.compareAndSet(false, true) && isCurrent()) {
+                breaker.circuitBreaker.onSuccess(durationMs, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        public void onError(long durationMs) {
+            if (settled.compareAndSet(false, true) && isCurrent()) {
+                breaker.circuitBreaker.onError(durationMs, TimeUnit.MILLISECONDS, LambdaCallFailed.INSTANCE);
+            }
+        }
+
+        /**
+         * Hand back a permission whose call said nothing about the backend's health (e.g. throttled)
+         */
+        public void release() {
+            if (settled.compareAndSet(false, true) && isCurrent()) {
+                breaker.circuitBreaker.releasePermission();
+            }
+        }
+
+        /**
+         * A call granted before the last transition says nothing about the current state
+         */
+        private boolean isCurrent() {
+            return breaker.generation.get() == generation;
+        }
+    }
+
+    /**
+     * What a failed call is recorded as; the pipeline logs the real cause itself
+     */
+    private static final class LambdaCallFailed extends RuntimeException {
+        private static final LambdaCallFailed INSTANCE = new LambdaCallFailed();
+
+        private LambdaCallFailed() {
+            super("Lambda call failed", null, false, false);
+        }
+    }
+}
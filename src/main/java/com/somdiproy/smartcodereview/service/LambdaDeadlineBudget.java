@@ -0,0 +1,125 @@
+package com.somdiproy.smartcodereview.service;
+
+import com.somdiproy.smartcodereview.util.LambdaStages;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Time budget of each running analysis, split into deadlines for its Lambda stages.
+ * The budget starts when the analysis starts. The first call of a stage fixes that stage's
+ * deadline at its share of whatever budget is left, so a slow screening leaves less time to
+ * detection instead of pushing the whole analysis past its budget. Batches of one stage share
+ * the same deadline, and calls and retries are cut off when it passes.
+ */
+@Component
+public class LambdaDeadlineBudget {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(LambdaDeadlineBudget.class);
+
+    private static final long NO_DEADLINE = Long.MAX_VALUE;
+
+    @Value("${aws.lambda.deadline.enabled:true}")
+    private boolean enabled;
+
+    @Value("${aws.lambda.deadline.analysis-budget-ms:2400000}") // 40 minutes
+    private long analysisBudgetMs;
+
+    @Value("${aws.lambda.deadline.min-stage-ms:60000}")
+    private long minStageMs;
+
+    @Value("${aws.lambda.deadline.share.screening:0.25}")
+    private double screeningShare;
+
+    @Value("${aws.lambda.deadline.share.detection:0.75}")
+    private double detectionShare;
+
+    @Value("${aws.lambda.deadline.share.suggestions:1.0}")
+    private double suggestionsShare;
+
+    private final Map<String, Budget> budgets = new ConcurrentHashMap<>();
+
+    /**
+     * Start the clock for an analysis
+     */
+    public void begin(String analysisId) {
+        if (enabled && analysisId != null) {
+            pruneOverdue();
+            budgets.put(analysisId, new Budget(System.currentTimeMillis() + analysisBudgetMs));
+        }
+    }
+
+    public void end(String analysisId) {
+        if (analysisId != null) {
+            budgets.remove(analysisId);
+        }
+    }
+
+    /**
+     * Epoch millis by which the operation's calls for this analysis must finish, or
+     * Long.MAX_VALUE when deadlines are disabled. An analysis that was never begun
+     * starts its budget on its first call.
+     */
+    public long stageDeadline(String analysisId, String operation) {
+        if (!enabled || analysisId == null) {
+            return NO_DEADLINE;
+        }
+        // Batch variants share their base stage's deadline
+        String stage = LambdaStages.stageOf(operation);
+        Budget budget = budgetFor(analysisId);
+        return budget.stageDeadlines.computeIfAbsent(stage, s -> {
+            long now = System.currentTimeMillis();
+            long remaining = Math.max(0, budget.analysisDeadline - now);
+            long stageMs = Math.max(minStageMs, (long) (remaining * shareOf(s)));
+            log.info("⏱️ {} deadline for analysis {}: {}ms of {}ms remaining", s, analysisId, stageMs, remaining);
+            return now + stageMs;
+        });
+    }
+
+    /**
+     * Milliseconds left until a deadline, never negative
+     */
+    public static long remainingMs(long deadline) {
+        return deadline == NO_DEADLINE ? NO_DEADLINE : Math.max(0, deadline - System.currentTimeMillis());
+    }
+
+    private Budget budgetFor(String analysisId) {
+        Budget budget = budgets.get(analysisId);
+        if (budget == null) {
+            pruneOverdue();
+            budget = budgets.computeIfAbsent(analysisId,
+                    id -> new Budget(System.currentTimeMillis() + analysisBudgetMs));
+        }
+        return budget;
+    }
+
+    /**
+     * Analyses started outside the orchestrator are never ended; drop them once long overdue
+     */
+    private void pruneOverdue() {
+        long now = System.currentTimeMillis();
+        budgets.values().removeIf(b -> b.analysisDeadline + analysisBudgetMs < now);
+    }
+
+    private double shareOf(String stage) {
+        switch (stage) {
+            case "screening":
+                return screeningShare;
+            case "detection":
+                return detectionShare;
+            default:
+                return suggestionsShare;
+        }
+    }
+
+    private static class Budget {
+        private final long analysisDeadline;
+        private final Map<String, Long> stageDeadlines = new ConcurrentHashMap<>();
+
+        private Budget(long analysisDeadline) {
+            this.analysisDeadline = analysisDeadline;
+        }
+    }
+}
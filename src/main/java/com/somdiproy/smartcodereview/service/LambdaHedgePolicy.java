@@ -0,0 +1,105 @@
+package com.somdiproy.smartcodereview.service;
+
+import com.somdiproy.smartcodereview.util.LambdaStages;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * When to hedge a Lambda call: once it has run longer than the operation's observed
+ * percentile latency, a duplicate is sent and whichever answers first is used.
+ * Latencies of successful calls are kept per operation in a fixed-size ring, so the
+ * percentile follows recent behaviour. Only idempotent operations may be hedged; the
+ * suggestions function writes to DynamoDB and is left out by default.
+ */
+@Component
+public class LambdaHedgePolicy {
+
+    @Value("${aws.lambda.hedging.enabled:false}")
+    private boolean enabled;
+
+    @Value("${aws.lambda.hedging.operations:screening,detection}")
+    private List<String> operations;
+
+    @Value("${aws.lambda.hedging.percentile:95}")
+    private double percentile;
+
+    @Value("${aws.lambda.hedging.min-samples:20}")
+    private int minSamples;
+
+    @Value("${aws.lambda.hedging.window-size:200}")
+    private int windowSize;
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, LatencyRing> latencies = new ConcurrentHashMap<>();
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    public LambdaHedgePolicy(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public void recordLatency(String operation, long durationMs) {
+        latencies.computeIfAbsent(operation, k -> new LatencyRing(windowSize)).add(durationMs);
+    }
+
+    /**
+     * Milliseconds after which to send a duplicate call, or -1 when the operation is not
+     * hedged or too few calls have been seen to know its tail
+     */
+    public long hedgeDelayMs(String operation) {
+        if (!enabled || !operations.contains(LambdaStages.stageOf(operation))) {
+            return -1;
+        }
+        LatencyRing ring = latencies.get(operation);
+        return ring != null ? ring.percentile(percentile, minSamples) : -1;
+    }
+
+    public double getPercentile() {
+        return percentile;
+    }
+
+    /**
+     * Count a hedge outcome: fired, or won when the duplicate answered first
+     */
+    public void record(String operation, String result) {
+        counters.computeIfAbsent(operation + ":" + result, k -> Counter.builder("lambda.hedge.requests")
+                .tag("operation", operation)
+                .tag("result", result)
+                .register(meterRegistry)).increment();
+    }
+
+    private static class LatencyRing {
+        private final long[] samples;
+        private int next;
+        private int size;
+
+        private LatencyRing(int capacity) {
+            this.samples = new long[Math.max(1, capacity)];
+        }
+
+        private synchronized void add(long durationMs) {
+            samples[next] = durationMs;
+            next = (next + 1) % samples.length;
+            size = Math.min(size + 1, samples.length);
+        }
+
+        private long percentile(double percentile, int minSamples) {
+            long[] sorted;
+            synchronized (this) {
+                if (size < Math.max(1, minSamples)) {
+                    return -1;
+                }
+                sorted = Arrays.copyOf(samples, size);
+            }
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+        }
+    }
+}
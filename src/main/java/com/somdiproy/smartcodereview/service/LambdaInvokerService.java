@@ -1,35 +1,52 @@
 package com.somdiproy.smartcodereview.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.somdiproy.smartcodereview.dto.LambdaFileInput;
+import com.somdiproy.smartcodereview.dto.StageRequest;
+import com.somdiproy.smartcodereview.dto.StageResponse;
+import com.somdiproy.smartcodereview.dto.SuggestionsRequest;
 import com.somdiproy.smartcodereview.service.GitHubService.GitHubFile;
+import com.somdiproy.smartcodereview.service.LambdaPayloadOffloader.LambdaPayload;
 import lombok.extern.slf4j.Slf4j;
 import software.amazon.awssdk.core.exception.SdkClientException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import software.amazon.awssdk.core.SdkBytes;
-import software.amazon.awssdk.services.lambda.LambdaClient;
+import software.amazon.awssdk.services.lambda.LambdaAsyncClient;
 import software.amazon.awssdk.services.lambda.model.InvocationType;
 import software.amazon.awssdk.services.lambda.model.InvokeRequest;
 import software.amazon.awssdk.services.lambda.model.InvokeResponse;
+import software.amazon.awssdk.services.lambda.model.TooManyRequestsException;
+import software.amazon.awssdk.core.exception.SdkServiceException;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import org.springframework.scheduling.annotation.Async;
+import jakarta.annotation.PostConstruct;
 import com.somdiproy.smartcodereview.model.Analysis;
 import com.somdiproy.smartcodereview.model.AnalysisResult;
 import com.somdiproy.smartcodereview.model.Issue;
@@ -41,31 +58,21 @@ import java.util.Date;
 @Service
 public class LambdaInvokerService {
 
-	private final LambdaClient lambdaClient;
+	private final LambdaAsyncClient lambdaAsyncClient;
 	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final ObjectReader stageResponseReader = objectMapper.readerFor(StageResponse.class);
 	private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(LambdaInvokerService.class);
 
 	// Configuration constants
-	private static final int DETECTION_BATCH_SIZE = 1; // Reduced to 1 for rate limiting
 	private static final int SUGGESTIONS_BATCH_SIZE = 1; // Process one issue at a time
-	private static final int MAX_PAYLOAD_SIZE = 25000; // 25KB max
 	private static final Duration LAMBDA_TIMEOUT = Duration.ofMinutes(30); // 1 hour for rate limiting scenarios
 
-	// Rate limiting configuration
-	private static final long LAMBDA_RATE_LIMIT_DELAY = 5000; // 10 seconds between calls
-	private static final long SUGGESTIONS_RATE_LIMIT_DELAY = 8000; // 15 seconds for suggestions
+	// Retry configuration
 	private static final int MAX_LAMBDA_RETRIES = 3;
 	private static final long MAX_RETRY_DELAY_MS = 60000; // 5 minutes max delay
 	private static final long BASE_RETRY_DELAY_MS = 5000; // 5 seconds base delay
 
-	// Circuit breaker configuration
-	private static final int CIRCUIT_BREAKER_FAILURE_THRESHOLD = 2;
-	private static final long CIRCUIT_BREAKER_TIMEOUT_MS = 120000; // 5 minutes
-
 	// Rate limiting state management
-	private final ConcurrentHashMap<String, Long> lastInvocationTimes = new ConcurrentHashMap<>();
-	private final ConcurrentHashMap<String, AtomicInteger> failureCounters = new ConcurrentHashMap<>();
-	private final ConcurrentHashMap<String, Long> circuitBreakerOpenTimes = new ConcurrentHashMap<>();
 	private final ConcurrentHashMap<String, Long> analysisLocks = new ConcurrentHashMap<>();
 	private static final long LOCK_TIMEOUT_MS = 3600000; // 1 hour
 
@@ -84,12 +91,51 @@ public class LambdaInvokerService {
 	@Value("${aws.lambda.functions.suggestions}")
 	private String suggestionsFunctionArn;
 
-	// Optional rate limiting configuration from properties
-	@Value("${aws.lambda.rate-limit.min-interval-between-calls:10000}")
-	private long configuredRateLimit;
+	@Value("${aws.lambda.batch.detection.parallelism:3}")
+	private int detectionParallelism;
+
+	@Autowired
+	@Qualifier("lambdaBatchExecutor")
+	private Executor lambdaBatchExecutor;
+
+	@Autowired
+	private LambdaRateLimiter rateLimiter;
+
+	@Autowired
+	private LambdaBatchPlanner batchPlanner;
 
-	@Value("${aws.lambda.rate-limit.max-concurrent-executions:1}")
-	private int maxConcurrentExecutions;
+	@Autowired
+	private LambdaPayloadOffloader payloadOffloader;
+
+	@Autowired
+	private StageCompletionListener completionListener;
+
+	@Autowired
+	private DetectionResultCache detectionCache;
+
+	@Autowired
+	private SuggestionDeduplicator suggestionDeduplicator;
+
+	@Autowired
+	private AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+	@Autowired
+	private LambdaCircuitBreaker circuitBreaker;
+
+	@Autowired
+	private LambdaDeadlineBudget deadlineBudget;
+
+	@Autowired
+	private LambdaHedgePolicy hedgePolicy;
+
+	@Autowired
+	private LambdaWorkScheduler workScheduler;
+
+	@Value("${aws.lambda.async.max-wait-time:1200000}")
+	private long asyncMaxWaitTimeMs;
+
+	@Value("${aws.lambda.payload.legacy-path-aliases:true}")
+	private boolean legacyPathAliases;
 
 	@Autowired
 	private DataAggregationService dataAggregationService;
@@ -101,18 +147,22 @@ public class LambdaInvokerService {
 	private IssueDetailsRepository issueDetailsRepository;
 
 	@Autowired
-	public LambdaInvokerService(LambdaClient lambdaClient) {
-		this.lambdaClient = lambdaClient;
-		log.info("🚀 LambdaInvokerService initialized with aggressive rate limiting configuration");
-		log.info("📊 Rate limits: Lambda calls={}ms, Suggestions={}ms, Max retries={}", LAMBDA_RATE_LIMIT_DELAY,
-				SUGGESTIONS_RATE_LIMIT_DELAY, MAX_LAMBDA_RETRIES);
+	public LambdaInvokerService(LambdaAsyncClient lambdaAsyncClient) {
+		this.lambdaAsyncClient = lambdaAsyncClient;
+	}
+
+	@PostConstruct
+	void logConfiguration() {
+		log.info("🚀 LambdaInvokerService initialized");
+		log.info("📊 Rate limits: {}, Max retries={}", rateLimiter.describe(), MAX_LAMBDA_RETRIES);
 	}
 
 	/**
-	 * Enhanced screening invocation with basic rate limiting
+	 * Enhanced screening invocation with basic rate limiting. screenedOutBlobShas is filled with
+	 * the path and blob SHA of every file a successful screening call passed over.
 	 */
 	public List<Map<String, Object>> invokeScreening(String sessionId, String analysisId, String repository,
-			String branch, List<GitHubFile> files, int scanNumber) {
+			String branch, List<GitHubFile> files, int scanNumber, Map<String, String> screenedOutBlobShas) {
 
 		String lockKey = "screening_" + analysisId;
 		if (!acquireAnalysisLock(lockKey)) {
@@ -121,38 +171,28 @@ public class LambdaInvokerService {
 		}
 
 		try {
-			enforceRateLimit("screening");
-
-			List<Map<String, Object>> fileInputs = files.stream().map(file -> {
-			    Map<String, Object> fileMap = new HashMap<>();
+			List<LambdaFileInput> fileInputs = files.stream().map(file -> {
 			    // Ensure path is never null
 			    String fullPath = file.getPath();
 			    if (fullPath == null || fullPath.trim().isEmpty()) {
 			        fullPath = file.getName();
 			        log.warn("⚠️ File path is null/empty for {}, using name as fallback", file.getName());
 			    }
-			    fileMap.put("path", fullPath);
-			    fileMap.put("name", file.getName());
-			    fileMap.put("content", file.getContent());
-			    fileMap.put("file", fullPath);  // Add redundant field for compatibility
-			    fileMap.put("filePath", fullPath);  // Add another redundant field
-			    fileMap.put("size", file.getSize());
-			    fileMap.put("sha", file.getSha());
-			    fileMap.put("language", file.getLanguage());
-			    fileMap.put("mimeType", file.getMimeType());
-			    fileMap.put("encoding", "UTF-8");
 			    log.debug("📁 Screening input - File: {} Path: {}", file.getName(), fullPath);
-			    return fileMap;
+			    // Content is streamed into the JSON payload
+			    return LambdaFileInput.of(fullPath, file.getName(), file.getContentData(), file.getSize(),
+			            file.getSha(), file.getLanguage(), file.getMimeType(), legacyPathAliases);
 			}).collect(Collectors.toList());
 
-			String testPayloadJson = objectMapper.writeValueAsString(Map.of("files", fileInputs));
-			boolean needsBatching = testPayloadJson.length() > 200000; // 200KB threshold
-
-			if (!needsBatching) {
-				return invokeSingleScreening(sessionId, analysisId, repository, branch, fileInputs, scanNumber);
-			} else {
-				return invokeBatchedScreening(sessionId, analysisId, repository, branch, fileInputs, scanNumber);
-			}
+			List<List<LambdaFileInput>> batches = batchPlanner.planScreening(fileInputs);
+			workScheduler.startStage(analysisId, batches.size());
+			List<Map<String, Object>> screenedFiles = batches.size() <= 1
+					? invokeSingleScreening(sessionId, analysisId, repository, branch, fileInputs, scanNumber,
+							screenedOutBlobShas)
+					: invokeBatchedScreening(sessionId, analysisId, repository, branch, batches, scanNumber,
+							screenedOutBlobShas);
+			carryBlobShas(screenedFiles, fileInputs);
+			return screenedFiles;
 
 		} catch (Exception e) {
 			log.error("❌ Failed to invoke screening Lambda for analysis {}", analysisId, e);
@@ -164,16 +204,20 @@ public class LambdaInvokerService {
 	}
 
 	/**
-	 * Enhanced detection invocation with aggressive rate limiting
+	 * Enhanced detection invocation with aggressive rate limiting. detectedBlobShas is filled with
+	 * the path and blob SHA of every file whose detection completed, from the cache or the Lambda.
 	 */
 	public List<Map<String, Object>> invokeDetection(String sessionId, String analysisId, String repository,
-	        String branch, List<Map<String, Object>> screenedFiles, int scanNumber) {
+	        String branch, List<Map<String, Object>> screenedFiles, int scanNumber,
+	        Map<String, String> detectedBlobShas) {
 
 	    String lockKey = "detection_" + analysisId;
 	    if (!acquireAnalysisLock(lockKey)) {
 	        log.warn("⚠️ Another detection process is already running for analysis {}", analysisId);
 	        return new ArrayList<>();
 	    }
+	    // Batches complete on executor threads
+	    Map<String, String> detected = new ConcurrentHashMap<>();
 	    
 	    // Debug: Log file paths being sent to detection
 	    if (log.isDebugEnabled()) {
@@ -189,22 +233,40 @@ public class LambdaInvokerService {
 				return new ArrayList<>();
 			}
 
-			enforceRateLimit("detection");
+			// Unchanged files already detected with the current model and prompt never reach the Lambda
+			DetectionResultCache.Lookup cached = detectionCache.lookup(analysisId, screenedFiles);
+			List<Map<String, Object>> filesToDetect = cached.getMisses();
+			recordDetected(detected, cached.getHits());
+			if (cached.getHitFiles() > 0) {
+				log.info("🗃️ Detection cache: {} of {} files cached ({} issues), {} to detect", cached.getHitFiles(),
+						screenedFiles.size(), cached.getIssues().size(), filesToDetect.size());
+			}
+			if (filesToDetect.isEmpty()) {
+				return cached.getIssues();
+			}
 
-			String testPayload = objectMapper.writeValueAsString(screenedFiles);
-			if (testPayload.length() > MAX_PAYLOAD_SIZE || screenedFiles.size() > DETECTION_BATCH_SIZE) {
-				log.info("📦 Large payload detected ({} files, {} bytes). Using batch processing...",
-						screenedFiles.size(), testPayload.length());
-				return invokeDetectionInBatches(sessionId, analysisId, repository, branch, screenedFiles, scanNumber);
+			List<Map<String, Object>> issues;
+			List<List<Map<String, Object>>> batches = batchPlanner.planDetection(filesToDetect);
+			workScheduler.startStage(analysisId, batches.size());
+			if (batches.size() > 1) {
+				log.info("📦 Large payload detected ({} files packed into {} batches). Using batch processing...",
+						filesToDetect.size(), batches.size());
+				issues = invokeDetectionInBatches(sessionId, analysisId, repository, branch, batches, scanNumber,
+						detected);
+			} else {
+				issues = invokeSingleDetection(sessionId, analysisId, repository, branch, filesToDetect, scanNumber,
+						detected);
 			}
 
-			return invokeSingleDetection(sessionId, analysisId, repository, branch, screenedFiles, scanNumber);
+			issues.addAll(cached.getIssues());
+			return issues;
 
 		} catch (Exception e) {
 			log.error("❌ Failed to invoke detection Lambda for analysis {}", analysisId, e);
 			recordFailure("detection");
 			return new ArrayList<>();
 		} finally {
+			detectedBlobShas.putAll(detected);
 			releaseAnalysisLock(lockKey);
 		}
 	}
@@ -239,16 +301,24 @@ public class LambdaInvokerService {
 			log.info("🎯 Hybrid Strategy: Processing {} issues out of {} total (optimized for cost)",
 					hybridProcessedIssues.size(), issues.size());
 
+			// Issues with the same fingerprint share one Nova call, cached ones need none
+			SuggestionDeduplicator.Plan plan = suggestionDeduplicator.plan(repository, hybridProcessedIssues);
+			if (plan.getRepresentatives().isEmpty()) {
+				log.info("🧬 All {} suggestions served from cache", hybridProcessedIssues.size());
+				return withFannedOutSuggestions(analysisId, createSyntheticJsonResponseForLambda("suggestions", "SUCCESS"),
+						plan);
+			}
+
 			// Add fallback mechanism for failed suggestions
 			String result = invokeSuggestionsWithFallback(sessionId, analysisId, repository, branch, 
-					hybridProcessedIssues, scanNumber);
+					plan.getRepresentatives(), scanNumber);
 			
 			if (result == null || "FAILED".equals(result)) {
 				log.warn("⚠️ Suggestions generation failed, creating partial response");
 				return createPartialSuggestionsResponse(analysisId, hybridProcessedIssues);
 			}
 			
-			return result;
+			return plan.isDeduplicated() ? withFannedOutSuggestions(analysisId, result, plan) : result;
 
 		} catch (Exception e) {
 			log.error("❌ Failed to invoke suggestions Lambda for analysis {}", analysisId, e);
@@ -259,6 +329,24 @@ public class LambdaInvokerService {
 		}
 	}
 
+	/**
+	 * Add the suggestions for cached and collapsed issues to a suggestions response
+	 */
+	private String withFannedOutSuggestions(String analysisId, String result, SuggestionDeduplicator.Plan plan) {
+		try {
+			Map<String, Object> response = objectMapper.readValue(result, Map.class);
+			List<Map<String, Object>> responseSuggestions = response.get("suggestions") instanceof List
+					? (List<Map<String, Object>>) response.get("suggestions") : null;
+			// PARTIAL responses hold locally generated fallbacks, which must not be cached
+			boolean generated = !"PARTIAL".equals(response.get("status"));
+			response.put("suggestions", suggestionDeduplicator.fanOut(analysisId, plan, responseSuggestions, generated));
+			return objectMapper.writeValueAsString(response);
+		} catch (Exception e) {
+			log.warn("⚠️ Could not fan out de-duplicated suggestions for analysis {}: {}", analysisId, e.getMessage());
+			return result;
+		}
+	}
+
 	private String generateBasicDescription(Map<String, Object> issue) {
 		String type = (String) issue.get("type");
 		String file = (String) issue.get("file");
@@ -500,27 +588,36 @@ public class LambdaInvokerService {
 	}
 	
 	/**
-	 * Asynchronous Lambda invocation with polling
+	 * Asynchronous Lambda invocation, completed by notification when the listener is enabled
+	 * and by polling DynamoDB otherwise
 	 */
 	@Async
 	public CompletableFuture<String> invokeSuggestionsAsync(String sessionId, String analysisId, 
 	        String repository, String branch, List<Map<String, Object>> issues, int scanNumber) {
 	    
+	    if (completionListener.isEnabled()) {
+	        return invokeSuggestionsWithNotification(sessionId, analysisId, repository, branch, issues, scanNumber);
+	    }
+
 	    return CompletableFuture.supplyAsync(() -> {
 	        try {
 	            // Start Lambda function asynchronously
-	            String invokeResult = invokeLambdaAsync(
-	                suggestionsFunctionArn, 
-	                buildSuggestionsPayload(sessionId, analysisId, repository, branch, issues, scanNumber)
-	            );
-	            
-	            if (invokeResult != null) {
-	                // Poll for completion
-	                return pollForSuggestionsCompletion(analysisId, 1200000L); // 20 minutes max
+	            LambdaPayload payload = buildSuggestionsPayload(sessionId, analysisId, repository, branch, issues,
+	                scanNumber);
+	            try {
+	                String invokeResult = invokeLambdaAsync(suggestionsFunctionArn, payload, "suggestions", analysisId);
+	                
+	                if (invokeResult != null) {
+	                    // Poll for completion
+	                    return pollForSuggestionsCompletion(analysisId, 1200000L); // 20 minutes max
+	                }
+	                
+	                return "FAILED";
+	            } finally {
+	                // The function reads an offloaded request while it runs, so keep it until polling ends
+	                payloadOffloader.release(payload);
 	            }
 	            
-	            return "FAILED";
-	            
 	        } catch (Exception e) {
 	            log.error("❌ Async suggestions generation failed for analysis {}: {}", analysisId, e.getMessage());
 	            return "FAILED";
@@ -529,26 +626,68 @@ public class LambdaInvokerService {
 	}
 
 	/**
-	 * Invoke Lambda function asynchronously
+	 * Start suggestions and complete when the function's completion message arrives
 	 */
-	private String invokeLambdaAsync(String functionArn, String payload) {
+	private CompletableFuture<String> invokeSuggestionsWithNotification(String sessionId, String analysisId,
+	        String repository, String branch, List<Map<String, Object>> issues, int scanNumber) {
+
+	    // Register first so a fast completion cannot arrive before anyone is waiting
+	    CompletableFuture<String> completion = completionListener.await(analysisId, "suggestions");
+	    LambdaPayload payload = null;
 	    try {
-	        InvokeRequest request = InvokeRequest.builder()
-	            .functionName(functionArn)
-	            .invocationType(InvocationType.EVENT) // Async invocation
-	            .payload(SdkBytes.fromUtf8String(payload))
-	            .build();
-	        
-	        InvokeResponse response = lambdaClient.invoke(request);
-	        
-	        if (response.statusCode() == 202) { // Async success
-	            log.info("✅ Lambda function started asynchronously");
-	            return "ASYNC_STARTED";
-	        } else {
-	            log.error("❌ Lambda async invocation failed with status: {}", response.statusCode());
+	        payload = buildSuggestionsPayload(sessionId, analysisId, repository, branch, issues, scanNumber);
+	        String invokeResult = invokeLambdaAsync(suggestionsFunctionArn, payload, "suggestions", analysisId);
+	        if (invokeResult == null) {
+	            payloadOffloader.release(payload);
+	            completion.cancel(false);
+	            return CompletableFuture.completedFuture("FAILED");
+	        }
+	    } catch (Exception e) {
+	        log.error("❌ Async suggestions generation failed for analysis {}: {}", analysisId, e.getMessage());
+	        payloadOffloader.release(payload);
+	        completion.cancel(false);
+	        return CompletableFuture.completedFuture("FAILED");
+	    }
+	    // The function reads an offloaded request while it runs, so keep it until the wait ends
+	    LambdaPayload started = payload;
+	    return completion.completeOnTimeout("TIMEOUT", asyncMaxWaitTimeMs, TimeUnit.MILLISECONDS)
+	        .whenComplete((status, error) -> payloadOffloader.release(started));
+	}
+
+	/**
+	 * Invoke Lambda function asynchronously. The event start goes through the same token bucket,
+	 * concurrency permit, circuit breaker and retries as a stage call; the breaker and the limit
+	 * judge whether the function accepted the event, since its own outcome arrives later through
+	 * the completion path. Event starts are never hedged: a duplicate would run the function twice.
+	 */
+	private String invokeLambdaAsync(String functionArn, LambdaPayload payload, String operation,
+	        String analysisId) {
+	    InvokeRequest request = InvokeRequest.builder()
+	        .functionName(functionArn)
+	        .invocationType(InvocationType.EVENT) // Async invocation
+	        .payload(payload.getBytes())
+	        .build();
+	    long deadline = deadlineBudget.stageDeadline(analysisId, operation);
+
+	    // Start the stage first, so the fair queues see a one-call stage while the start waits
+	    workScheduler.startStage(analysisId, 1);
+	    CompletableFuture<Void> ratePermit = rateLimiter.acquireAsync(operation, analysisId);
+	    if (!ratePermit.isDone()) {
+	        log.info("🐌 Rate limiting: operation {} waiting for its next permit", operation);
+	        rateLimitedInvocations.incrementAndGet();
+	    }
+
+	    try {
+	        String started = join(ratePermit
+	            .thenCompose(ignored -> invokeWithRetryAndCircuitBreakerAsync(request, operation, analysisId,
+	                deadline, new CompletableFuture<>(), sent -> {
+	                }))
+	            .whenComplete((rawResponse, error) -> workScheduler.callFinished(analysisId)));
+	        if (started == null) {
 	            return null;
 	        }
-	        
+	        log.info("✅ Lambda function started asynchronously");
+	        return "ASYNC_STARTED";
 	    } catch (Exception e) {
 	        log.error("❌ Failed to invoke Lambda async: {}", e.getMessage());
 	        return null;
@@ -670,7 +809,7 @@ public class LambdaInvokerService {
 	/**
 	 * Build suggestions payload with enhanced configuration
 	 */
-	private String buildSuggestionsPayload(String sessionId, String analysisId, String repository, 
+	private LambdaPayload buildSuggestionsPayload(String sessionId, String analysisId, String repository, 
 	        String branch, List<Map<String, Object>> issues, int scanNumber) throws Exception {
 	    
 	    // Enhance issues with code context before sending
@@ -690,8 +829,10 @@ public class LambdaInvokerService {
 	        String filePath = (String) issue.get("file");
 	        if (filePath != null && !filePath.isEmpty()) {
 	            enhancedIssue.put("file", filePath);
-	            enhancedIssue.put("filePath", filePath); // redundancy for compatibility
-	            enhancedIssue.put("path", filePath); // more redundancy
+	            if (legacyPathAliases) {
+	                enhancedIssue.put("filePath", filePath); // redundancy for compatibility
+	                enhancedIssue.put("path", filePath); // more redundancy
+	            }
 	            log.debug("✅ Preserved file path in suggestion payload: {}", filePath);
 	        } else {
 	            log.error("❌ CRITICAL: No file path found for issue {} of type {}", 
@@ -706,30 +847,24 @@ public class LambdaInvokerService {
 	            }
 	        }
 	        enhancedIssue.put("codeSnippet", codeSnippet);
-	        enhancedIssue.put("actualCode", codeSnippet); // Duplicate for backward compatibility
+	        if (legacyPathAliases) {
+	            enhancedIssue.put("actualCode", codeSnippet); // Duplicate for backward compatibility
+	        }
 	        enhancedIssues.add(enhancedIssue);
 	    }
 	    
-	    Map<String, Object> payload = new HashMap<>();
-	    payload.put("sessionId", sessionId);
-	    payload.put("analysisId", analysisId);
-	    payload.put("repository", repository);
-	    payload.put("branch", branch);
-	    payload.put("issues", enhancedIssues);
-	    payload.put("scanNumber", scanNumber);
-	    
 	    // Enhanced configuration for rate limiting
-	    payload.put("strategy", "hybrid");
-	    payload.put("processingMode", "async");
-	    payload.put("rateLimitMode", true);
-	    payload.put("maxConcurrentRequests", 1);
-	    payload.put("batchSize", 1);
-	    payload.put("delayBetweenRequests", 8000); // 8 seconds
-	    payload.put("maxRetries", 3);
-	    payload.put("timeoutBuffer", 60000); // 1 minute buffer
-	    payload.put("timestamp", System.currentTimeMillis());
+	    SuggestionsRequest request = SuggestionsRequest.builder()
+	        .analysis(sessionId, analysisId, repository, branch, scanNumber)
+	        .issues(enhancedIssues)
+	        .strategy("hybrid")
+	        .processingMode("async")
+	        .rateLimited(8000, 3) // 8 seconds
+	        .timeoutBuffer(60000) // 1 minute buffer
+	        .build();
 	    
-	    return objectMapper.writeValueAsString(payload);
+	    // Sent as an event, so it goes to the claim-check store well before the synchronous threshold
+	    return payloadOffloader.prepareEvent(request, "suggestions");
 	}
 	
 	/**
@@ -922,46 +1057,30 @@ public class LambdaInvokerService {
 
 		log.info("🚀 Invoking suggestions Lambda with hybrid strategy for {} issues", issues.size());
 
-		// Pre-delay to ensure we don't hit rate limits
-		enforceRateLimit("suggestions", SUGGESTIONS_RATE_LIMIT_DELAY);
-
-		Map<String, Object> payload = new HashMap<>();
-		payload.put("sessionId", sessionId);
-		payload.put("analysisId", analysisId);
-		payload.put("repository", repository);
-		payload.put("branch", branch);
-		payload.put("issues", issues);
-		payload.put("scanNumber", scanNumber);
-
-		// Enable hybrid strategy in Lambda
-		payload.put("strategy", "hybrid");
-		payload.put("modelId", determineOverallModelStrategy(issues));
-		payload.put("processingMode", "hybrid");
+		SuggestionsRequest.Builder request = SuggestionsRequest.builder()
+				.analysis(sessionId, analysisId, repository, branch, scanNumber)
+				.issues(issues)
+				// Enable hybrid strategy in Lambda
+				.strategy("hybrid")
+				.modelId(determineOverallModelStrategy(issues))
+				.processingMode("hybrid")
+				// Rate limiting configuration, 8 seconds between Nova API calls
+				.rateLimited(8000, 10)
+				.exponentialBackoffMaxDelay(120000);
 
 		// Add issue severity for routing decisions
 		if (!issues.isEmpty()) {
 			String maxSeverity = issues.stream().map(issue -> (String) issue.getOrDefault("severity", "MEDIUM"))
 					.max(this::compareSeverity).orElse("MEDIUM");
-			payload.put("issueSeverity", maxSeverity);
+			request.issueSeverity(maxSeverity);
 		}
 
-		// Rate limiting configuration
-		payload.put("rateLimitMode", true);
-		payload.put("maxConcurrentRequests", 1);
-		payload.put("batchSize", 1);
-		payload.put("delayBetweenRequests", 8000); // 8 seconds between Nova API calls
-		payload.put("maxRetries", 10);
-		payload.put("exponentialBackoffMaxDelay", 120000);
-		payload.put("timestamp", System.currentTimeMillis());
-
-		String payloadJson = objectMapper.writeValueAsString(payload);
+		LambdaPayload preparedPayload = payloadOffloader.prepare(request.build(), "suggestions");
 
-		log.info("📤 Invoking suggestions Lambda with hybrid strategy, payload size: {} bytes", payloadJson.length());
+		log.info("📤 Invoking suggestions Lambda with hybrid strategy, payload size: {} bytes", preparedPayload.getSize());
 
-		InvokeRequest request = InvokeRequest.builder().functionName(suggestionsFunctionArn)
-				.invocationType(InvocationType.REQUEST_RESPONSE).payload(SdkBytes.fromUtf8String(payloadJson)).build();
-
-		String rawResponse = invokeWithRetryAndCircuitBreaker(request, "suggestions");
+		workScheduler.startStage(analysisId, 1);
+		String rawResponse = invokeStage(suggestionsFunctionArn, preparedPayload, "suggestions", analysisId);
 		return processLambdaResponse(rawResponse, "suggestions");
 	}
 
@@ -1003,118 +1122,92 @@ public class LambdaInvokerService {
 
 		log.info("🐌 Invoking suggestions with ultra-aggressive rate limiting for {} issues", issues.size());
 
-		// Pre-delay to ensure we don't hit rate limits
-		enforceRateLimit("suggestions", SUGGESTIONS_RATE_LIMIT_DELAY);
-
-		Map<String, Object> payload = new HashMap<>();
-		payload.put("sessionId", sessionId);
-		payload.put("analysisId", analysisId);
-		payload.put("repository", repository);
-		payload.put("branch", branch);
-		payload.put("issues", issues);
-		payload.put("scanNumber", scanNumber);
-		payload.put("rateLimitMode", true);
-		payload.put("maxConcurrentRequests", 1);
-		payload.put("batchSize", 1);
-		payload.put("delayBetweenRequests", 15000); // 15 seconds between Nova API calls
-		payload.put("maxRetries", 3);
-		payload.put("exponentialBackoffMaxDelay", 120000);
-		payload.put("timestamp", System.currentTimeMillis());
-
-		String payloadJson = objectMapper.writeValueAsString(payload);
+		SuggestionsRequest request = SuggestionsRequest.builder()
+				.analysis(sessionId, analysisId, repository, branch, scanNumber)
+				.issues(issues)
+				.rateLimited(15000, 3) // 15 seconds between Nova API calls
+				.exponentialBackoffMaxDelay(120000)
+				.build();
 
-		log.info("📤 Invoking suggestions Lambda with ultra-conservative configuration, payload size: {} bytes",
-				payloadJson.length());
+		LambdaPayload preparedPayload = payloadOffloader.prepare(request, "suggestions");
 
-		InvokeRequest request = InvokeRequest.builder().functionName(suggestionsFunctionArn)
-				.invocationType(InvocationType.REQUEST_RESPONSE).payload(SdkBytes.fromUtf8String(payloadJson)).build();
+		log.info("📤 Invoking suggestions Lambda with ultra-conservative configuration, payload size: {} bytes",
+				preparedPayload.getSize());
 
-		return invokeWithRetryAndCircuitBreaker(request, "suggestions");
+		workScheduler.startStage(analysisId, 1);
+		return invokeStage(suggestionsFunctionArn, preparedPayload, "suggestions", analysisId);
 	}
 
 	/**
 	 * Private helper methods
 	 */
 	private List<Map<String, Object>> invokeSingleScreening(String sessionId, String analysisId, String repository,
-			String branch, List<Map<String, Object>> fileInputs, int scanNumber) throws Exception {
+			String branch, List<LambdaFileInput> fileInputs, int scanNumber, Map<String, String> screenedOutBlobShas)
+			throws Exception {
 
-		Map<String, Object> payload = new HashMap<>();
-		payload.put("sessionId", sessionId);
-		payload.put("analysisId", analysisId);
-		payload.put("repository", repository);
-		payload.put("branch", branch);
-		payload.put("files", fileInputs);
-		payload.put("stage", "screening");
-		payload.put("scanNumber", scanNumber);
-		payload.put("timestamp", System.currentTimeMillis());
+		StageRequest request = StageRequest.of(sessionId, analysisId, repository, branch, "screening", scanNumber,
+				fileInputs);
 
-		String payloadJson = objectMapper.writeValueAsString(payload);
-		log.info("📤 Invoking screening Lambda with payload size: {} bytes", payloadJson.length());
+		LambdaPayload preparedPayload = payloadOffloader.prepare(request, "screening");
+		log.info("📤 Invoking screening Lambda with payload size: {} bytes", preparedPayload.getSize());
 
-		InvokeRequest request = InvokeRequest.builder().functionName(screeningFunctionArn)
-				.invocationType(InvocationType.REQUEST_RESPONSE).payload(SdkBytes.fromUtf8String(payloadJson)).build();
-
-		String rawResponse = invokeWithRetryAndCircuitBreaker(request, "screening");
+		String rawResponse = invokeStage(screeningFunctionArn, preparedPayload, "screening", analysisId);
 		String responseJson = processLambdaResponse(rawResponse, "screening");
 		if (responseJson == null)
 			return new ArrayList<>();
 
-		Map<String, Object> responseMap = objectMapper.readValue(responseJson, Map.class);
-		String status = (String) responseMap.get("status");
+		StageResponse response = stageResponseReader.readValue(responseJson);
 
-		if ("error".equals(status)) {
-			log.error("❌ Lambda returned error: {}", responseMap.get("errors"));
+		if (response.isError()) {
+			log.error("❌ Lambda returned error: {}", response.errors());
 			return new ArrayList<>();
 		}
 
-		List<Map<String, Object>> screenedFiles = (List<Map<String, Object>>) responseMap.get("files");
+		List<Map<String, Object>> screenedFiles = response.files();
 		if (screenedFiles != null && log.isDebugEnabled()) {
 		    screenedFiles.forEach(file -> {
 		        log.debug("📁 Screened file - Name: {}, Path: {}", file.get("name"), file.get("path"));
 		    });
 		}
-		return screenedFiles != null ? screenedFiles : new ArrayList<>();
+		screenedFiles = screenedFiles != null ? screenedFiles : new ArrayList<>();
+		if (response.isSuccess()) {
+			recordScreenedOut(fileInputs, screenedFiles, screenedOutBlobShas);
+		}
+		return screenedFiles;
 	}
 
 	private List<Map<String, Object>> invokeBatchedScreening(String sessionId, String analysisId, String repository,
-			String branch, List<Map<String, Object>> fileInputs, int scanNumber) throws Exception {
+			String branch, List<List<LambdaFileInput>> batches, int scanNumber, Map<String, String> screenedOutBlobShas)
+			throws Exception {
 
-		log.info("📦 Large payload detected ({} files). Using batch processing...", fileInputs.size());
+		int totalFiles = batches.stream().mapToInt(List::size).sum();
+		log.info("📦 Large payload detected ({} files in {} batches). Using batch processing...", totalFiles,
+				batches.size());
 
-		List<List<Map<String, Object>>> batches = createBatches(fileInputs, 10);
 		List<Map<String, Object>> allScreenedFiles = new ArrayList<>();
 
 		for (int i = 0; i < batches.size(); i++) {
 			try {
-				// Rate limiting between batches
-				if (i > 0) {
-					enforceRateLimit("screening_batch");
-				}
-
-				Map<String, Object> batchPayload = createBatchPayload(sessionId, analysisId, repository, branch,
-						batches.get(i), "screening", scanNumber, i + 1, batches.size());
+				StageRequest batchRequest = StageRequest.of(sessionId, analysisId, repository, branch, "screening",
+						scanNumber, batches.get(i)).withBatch(i + 1, batches.size());
 
-				String payloadJson = objectMapper.writeValueAsString(batchPayload);
+				LambdaPayload preparedPayload = payloadOffloader.prepare(batchRequest, "screening_batch");
 				log.info("📤 Invoking screening Lambda batch {}/{} with {} files, payload size: {} bytes", i + 1,
-						batches.size(), batches.get(i).size(), payloadJson.length());
+						batches.size(), batches.get(i).size(), preparedPayload.getSize());
 
-				InvokeRequest request = InvokeRequest.builder().functionName(screeningFunctionArn)
-						.invocationType(InvocationType.REQUEST_RESPONSE).payload(SdkBytes.fromUtf8String(payloadJson))
-						.build();
-
-				String rawResponse = invokeWithRetryAndCircuitBreaker(request, "screening_batch");
+				String rawResponse = invokeStage(screeningFunctionArn, preparedPayload, "screening_batch",
+						analysisId);
 				String responseJson = processLambdaResponse(rawResponse, "screening_batch");
 				if (responseJson != null) {
-					Map<String, Object> responseMap = objectMapper.readValue(responseJson, Map.class);
-					String status = (String) responseMap.get("status");
-
-					if ("success".equals(status) || status == null) {
-						List<Map<String, Object>> batchFiles = (List<Map<String, Object>>) responseMap.get("files");
-						if (batchFiles != null) {
-							allScreenedFiles.addAll(batchFiles);
-							log.info("✅ Batch {}/{} processed successfully: {} files screened", i + 1, batches.size(),
-									batchFiles.size());
-						}
+					StageResponse response = stageResponseReader.readValue(responseJson);
+
+					if (response.isSuccess()) {
+						List<Map<String, Object>> batchFiles = response.files() != null ? response.files()
+								: new ArrayList<>();
+						allScreenedFiles.addAll(batchFiles);
+						recordScreenedOut(batches.get(i), batchFiles, screenedOutBlobShas);
+						log.info("✅ Batch {}/{} processed successfully: {} files screened", i + 1, batches.size(),
+								batchFiles.size());
 					}
 				}
 
@@ -1124,42 +1217,69 @@ public class LambdaInvokerService {
 		}
 
 		log.info("📊 Batch processing complete: {} files screened out of {} total files", allScreenedFiles.size(),
-				fileInputs.size());
+				totalFiles);
 		return allScreenedFiles;
 	}
 
-	private List<Map<String, Object>> invokeSingleDetection(String sessionId, String analysisId, String repository,
-			String branch, List<Map<String, Object>> screenedFiles, int scanNumber) throws Exception {
+	/**
+	 * Record the path and blob SHA of every input a successful screening call passed over.
+	 * They have no issues, so the next incremental scan can count them as unchanged.
+	 */
+	private void recordScreenedOut(List<LambdaFileInput> fileInputs, List<Map<String, Object>> screenedFiles,
+			Map<String, String> screenedOutBlobShas) {
+		Set<String> passed = screenedFiles.stream()
+				.map(file -> file.get("path"))
+				.filter(path -> path != null)
+				.map(Object::toString)
+				.collect(Collectors.toSet());
+		fileInputs.forEach(input -> {
+			if (input.sha() != null && !passed.contains(input.path())) {
+				screenedOutBlobShas.put(input.path(), input.sha());
+			}
+		});
+	}
+
+	/**
+	 * Copy each input's blob SHA onto its screened file when screening did not echo it,
+	 * so detection results can be cached by content
+	 */
+	private void carryBlobShas(List<Map<String, Object>> screenedFiles, List<LambdaFileInput> fileInputs) {
+		Map<String, String> shaByPath = new HashMap<>();
+		fileInputs.forEach(input -> {
+			if (input.sha() != null) {
+				shaByPath.put(input.path(), input.sha());
+			}
+		});
+		for (Map<String, Object> file : screenedFiles) {
+			Object path = file.get("path");
+			if (file.get("sha") == null && path != null && shaByPath.containsKey(path.toString())) {
+				file.put("sha", shaByPath.get(path.toString()));
+			}
+		}
+	}
 
-		Map<String, Object> payload = new HashMap<>();
-		payload.put("sessionId", sessionId);
-		payload.put("analysisId", analysisId);
-		payload.put("repository", repository);
-		payload.put("branch", branch);
-		payload.put("files", screenedFiles);
-		payload.put("stage", "detection");
-		payload.put("scanNumber", scanNumber);
-		payload.put("timestamp", System.currentTimeMillis());
+	private List<Map<String, Object>> invokeSingleDetection(String sessionId, String analysisId, String repository,
+			String branch, List<Map<String, Object>> screenedFiles, int scanNumber, Map<String, String> detected)
+			throws Exception {
 
-		String payloadJson = objectMapper.writeValueAsString(payload);
+		StageRequest request = StageRequest.of(sessionId, analysisId, repository, branch, "detection", scanNumber,
+				screenedFiles);
 
-		InvokeRequest request = InvokeRequest.builder().functionName(detectionFunctionArn)
-				.invocationType(InvocationType.REQUEST_RESPONSE).payload(SdkBytes.fromUtf8String(payloadJson)).build();
+		LambdaPayload preparedPayload = payloadOffloader.prepare(request, "detection");
 
-		String rawResponse = invokeWithRetryAndCircuitBreaker(request, "detection");
+		String rawResponse = invokeStage(detectionFunctionArn, preparedPayload, "detection", analysisId);
 		String responseJson = processLambdaResponse(rawResponse, "detection");
 		if (responseJson == null)
 			return new ArrayList<>();
 
-		Map<String, Object> responseMap = objectMapper.readValue(responseJson, Map.class);
-		String status = (String) responseMap.get("status");
+		StageResponse response = stageResponseReader.readValue(responseJson);
 
-		if ("error".equals(status)) {
-			log.error("❌ Detection Lambda returned error: {}", responseMap.get("errors"));
+		if (response.isError()) {
+			log.error("❌ Detection Lambda returned error: {}", response.errors());
 			return new ArrayList<>();
 		}
 
-		List<Map<String, Object>> issues = (List<Map<String, Object>>) responseMap.get("issues");
+		List<Map<String, Object>> issues = response.issues();
 		if (issues != null) {
 		    log.info("🐛 Detection found {} issues:", issues.size());
 		    
@@ -1193,147 +1313,435 @@ public class LambdaInvokerService {
 		        }
 		        log.debug("  Issue: {} in file: {}", issue.get("type"), issue.get("file"));
 		    });
+		    // Partial or unknown statuses say nothing reliable about the files without issues
+		    if (response.isSuccess()) {
+		        detectionCache.putAll(screenedFiles, issues);
+		        recordDetected(detected, screenedFiles);
+		    }
 		}
 		return issues != null ? issues : new ArrayList<>();
 	}
 
+	/**
+	 * Note the blob SHA of each file under its path once its detection has completed
+	 */
+	private static void recordDetected(Map<String, String> detected, List<Map<String, Object>> files) {
+		for (Map<String, Object> file : files) {
+			Object path = file.get("path");
+			Object sha = file.get("sha");
+			if (path != null && sha != null) {
+				detected.put(path.toString(), sha.toString());
+			}
+		}
+	}
+
 	private List<Map<String, Object>> invokeDetectionInBatches(String sessionId, String analysisId, String repository,
-			String branch, List<Map<String, Object>> screenedFiles, int scanNumber) {
+			String branch, List<List<Map<String, Object>>> batches, int scanNumber, Map<String, String> detected) {
 
-		List<Map<String, Object>> allIssues = new ArrayList<>();
-		List<List<Map<String, Object>>> batches = createBatches(screenedFiles, DETECTION_BATCH_SIZE);
+		int totalFiles = batches.stream().mapToInt(List::size).sum();
+		int parallelism = Math.max(1, Math.min(detectionParallelism, batches.size()));
 
-		log.info("📦 Processing {} files in {} batches for detection", screenedFiles.size(), batches.size());
+		log.info("📦 Processing {} files in {} batches for detection, up to {} in parallel", totalFiles,
+				batches.size(), parallelism);
 
-		int successfulBatches = 0;
-		int failedBatches = 0;
+		List<Map<String, Object>> allIssues = Collections.synchronizedList(new ArrayList<>());
+		AtomicInteger successfulBatches = new AtomicInteger();
+		AtomicInteger failedBatches = new AtomicInteger();
 
-		for (int i = 0; i < batches.size(); i++) {
-			long batchStartTime = System.currentTimeMillis();
+		// Each batch holds a slot until it finishes; its start is still spaced by the rate limiter
+		Semaphore slots = new Semaphore(parallelism);
+		List<CompletableFuture<Void>> inFlight = new ArrayList<>();
 
+		for (int i = 0; i < batches.size(); i++) {
+			int batchNumber = i + 1;
+			List<Map<String, Object>> batch = batches.get(i);
 			try {
-				// Aggressive rate limiting between batches
-				if (i > 0) {
-					enforceRateLimit("detection_batch", LAMBDA_RATE_LIMIT_DELAY);
-				}
+				slots.acquire();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				log.warn("⚠️ Detection dispatch interrupted after {}/{} batches", i, batches.size());
+				break;
+			}
 
-				Map<String, Object> batchPayload = createBatchPayload(sessionId, analysisId, repository, branch,
-						batches.get(i), "detection", scanNumber, i + 1, batches.size());
+			inFlight.add(invokeDetectionBatchAsync(sessionId, analysisId, repository, branch, batch, scanNumber,
+					batchNumber, batches.size(), detected)
+					.handle((batchIssues, error) -> {
+						slots.release();
+						if (error != null) {
+							log.error("❌ Failed to dispatch detection batch {}/{}: {}", batchNumber, batches.size(),
+									error.getMessage());
+							failedBatches.incrementAndGet();
+						} else if (batchIssues == null) {
+							failedBatches.incrementAndGet();
+						} else {
+							allIssues.addAll(batchIssues);
+							successfulBatches.incrementAndGet();
+						}
+						return null;
+					}));
+		}
 
-				String batchPayloadJson = objectMapper.writeValueAsString(batchPayload);
-				log.info("🔍 Invoking detection batch {}/{}, payload size: {} bytes", i + 1, batches.size(),
-						batchPayloadJson.length());
+		CompletableFuture.allOf(inFlight.toArray(new CompletableFuture[0])).join();
 
-				InvokeRequest request = InvokeRequest.builder().functionName(detectionFunctionArn)
-						.invocationType(InvocationType.REQUEST_RESPONSE)
-						.payload(SdkBytes.fromUtf8String(batchPayloadJson)).build();
+		log.info("📊 Detection batch processing complete: {} successful, {} failed, {} total issues found",
+				successfulBatches.get(), failedBatches.get(), allIssues.size());
 
-				String rawResponse = invokeWithRetryAndCircuitBreaker(request, "detection_batch");
-				String responseJson = processLambdaResponse(rawResponse, "detection_batch");
-				if (responseJson != null) {
-					Map<String, Object> responseMap = objectMapper.readValue(responseJson, Map.class);
-					String status = (String) responseMap.get("status");
+		return new ArrayList<>(allIssues);
+	}
 
-					if ("success".equals(status) || status == null) {
-						List<Map<String, Object>> batchIssues = (List<Map<String, Object>>) responseMap.get("issues");
-						if (batchIssues != null) {
-							allIssues.addAll(batchIssues);
-							long batchDuration = System.currentTimeMillis() - batchStartTime;
-							log.info("✅ Batch {}/{} completed in {} seconds: {} issues found", i + 1, batches.size(),
-									batchDuration / 1000, batchIssues.size());
-							successfulBatches++;
-						}
-					} else {
-						log.warn("⚠️ Batch {}/{} returned error: {}", i + 1, batches.size(), responseMap.get("errors"));
-						failedBatches++;
-					}
-				} else {
-					failedBatches++;
-				}
+	/**
+	 * Invoke detection for one batch, completing with its issues or null when the batch failed.
+	 * Serialization and parsing run on lambdaBatchExecutor; no thread is held while the function runs.
+	 */
+	private CompletableFuture<List<Map<String, Object>>> invokeDetectionBatchAsync(String sessionId,
+			String analysisId, String repository, String branch, List<Map<String, Object>> batch, int scanNumber,
+			int batchNumber, int totalBatches, Map<String, String> detected) {
+
+		long batchStartTime = System.currentTimeMillis();
+		return CompletableFuture.supplyAsync(() -> {
+			StageRequest batchRequest = StageRequest.of(sessionId, analysisId, repository, branch, "detection",
+					scanNumber, batch).withBatch(batchNumber, totalBatches);
+			try {
+				LambdaPayload preparedPayload = payloadOffloader.prepare(batchRequest, "detection_batch");
+				log.info("🔍 Invoking detection batch {}/{}, payload size: {} bytes", batchNumber, totalBatches,
+						preparedPayload.getSize());
+				return preparedPayload;
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}, lambdaBatchExecutor)
+				.thenCompose(preparedPayload -> invokeStageAsync(detectionFunctionArn, preparedPayload,
+						"detection_batch", analysisId))
+				.thenApplyAsync(rawResponse -> parseDetectionBatchResponse(rawResponse, batch, batchNumber,
+						totalBatches, batchStartTime, detected), lambdaBatchExecutor)
+				.exceptionally(error -> {
+					Throwable cause = error instanceof CompletionException && error.getCause() != null
+							? error.getCause() : error;
+					long batchDuration = System.currentTimeMillis() - batchStartTime;
+					log.error("❌ Failed to process detection batch {}/{} after {} seconds: {}", batchNumber,
+							totalBatches, batchDuration / 1000, cause.getMessage());
+					return null;
+				});
+	}
 
-			} catch (Exception e) {
-				long batchDuration = System.currentTimeMillis() - batchStartTime;
-				log.error("❌ Failed to process detection batch {}/{} after {} seconds: {}", i + 1, batches.size(),
-						batchDuration / 1000, e.getMessage());
-				failedBatches++;
+	private List<Map<String, Object>> parseDetectionBatchResponse(String rawResponse, List<Map<String, Object>> batch,
+			int batchNumber, int totalBatches, long batchStartTime, Map<String, String> detected) {
+
+		String responseJson = processLambdaResponse(rawResponse, "detection_batch");
+		if (responseJson == null) {
+			return null;
+		}
+
+		StageResponse response;
+		try {
+			response = stageResponseReader.readValue(responseJson);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+
+		if (response.isSuccess()) {
+			List<Map<String, Object>> batchIssues = response.issues();
+			if (batchIssues == null) {
+				// Synthetic responses carry no issues field and say nothing about the files
+				batchIssues = new ArrayList<>();
+			} else {
+				detectionCache.putAll(batch, batchIssues);
+				recordDetected(detected, batch);
 			}
+			long batchDuration = System.currentTimeMillis() - batchStartTime;
+			log.info("✅ Batch {}/{} completed in {} seconds: {} issues found", batchNumber, totalBatches,
+					batchDuration / 1000, batchIssues.size());
+			return batchIssues;
 		}
 
-		log.info("📊 Detection batch processing complete: {} successful, {} failed, {} total issues found",
-				successfulBatches, failedBatches, allIssues.size());
+		log.warn("⚠️ Batch {}/{} returned error: {}", batchNumber, totalBatches, response.errors());
+		return null;
+	}
+
+	/**
+	 * Invoke a stage function synchronously and resolve claim-check responses. The calling
+	 * thread waits on the call's future; rate limit waits run on the limiter's timer.
+	 */
+	private String invokeStage(String functionArn, LambdaPayload payload, String operation, String analysisId) {
+		return join(invokeStageAsync(functionArn, payload, operation, analysisId));
+	}
+
+	private CompletableFuture<String> invokeStageAsync(String functionArn, LambdaPayload payload, String operation,
+			String analysisId) {
+		InvokeRequest request = InvokeRequest.builder().functionName(functionArn)
+				.invocationType(InvocationType.REQUEST_RESPONSE).payload(payload.getBytes()).build();
+		long deadline = deadlineBudget.stageDeadline(analysisId, operation);
+
+		// Every stage call takes a permit from its operation's token bucket in its analysis's fair turn,
+		// no thread sleeps for it
+		CompletableFuture<Void> permit = rateLimiter.acquireAsync(operation, analysisId);
+		if (!permit.isDone()) {
+			log.info("🐌 Rate limiting: operation {} waiting for its next permit", operation);
+			rateLimitedInvocations.incrementAndGet();
+		}
 
-		return allIssues;
+		// Claim-check reads are blocking, so keep them off the SDK's completion threads
+		return permit.thenCompose(ignored -> invokeHedged(request, operation, analysisId, deadline))
+				.thenApplyAsync(rawResponse -> payloadOffloader.resolveResponse(rawResponse, operation),
+						lambdaBatchExecutor)
+				.whenComplete((rawResponse, error) -> {
+					payloadOffloader.release(payload);
+					workScheduler.callFinished(analysisId);
+				});
 	}
 
 	/**
-	 * Core invocation method with enhanced retry logic and circuit breaker
+	 * Send the call, plus a duplicate once an attempt of it has been in flight for longer than
+	 * the operation's hedge delay. Time spent waiting for a permit or backing off between retries
+	 * does not count, and no duplicate is sent while other calls are queued for permits, since it
+	 * would only take a permit from them. The first non-null response wins and the other call is
+	 * cancelled; cancelling only stops waiting for the response, the function invocation itself
+	 * still runs to the end.
 	 */
-	private String invokeWithRetryAndCircuitBreaker(InvokeRequest request, String operation) {
-		totalInvocations.incrementAndGet();
+	private CompletableFuture<String> invokeHedged(InvokeRequest request, String operation, String analysisId,
+			long deadline) {
+		long hedgeDelay = hedgePolicy.hedgeDelayMs(operation);
+		if (hedgeDelay < 0 || hedgeDelay >= LambdaDeadlineBudget.remainingMs(deadline)) {
+			return invokeWithRetryAndCircuitBreakerAsync(request, operation, analysisId, deadline,
+					new CompletableFuture<>(), sent -> {
+					});
+		}
 
-		if (isCircuitBreakerOpen(operation)) {
-			log.warn("🔴 Circuit breaker is OPEN for operation: {}. Skipping invocation.", operation);
-			return null;
+		CompletableFuture<String> result = new CompletableFuture<>();
+		CompletableFuture<Void> primaryCancelled = new CompletableFuture<>();
+		CompletableFuture<Void> hedgeCancelled = new CompletableFuture<>();
+		// Calls still running; once it drops to zero no hedge may start
+		AtomicInteger outstanding = new AtomicInteger(1);
+
+		// Each primary attempt starts the hedge clock when it is sent; the check only fires if that attempt is still running
+		Consumer<CompletableFuture<?>> onPrimarySent = sent -> CompletableFuture
+				.delayedExecutor(hedgeDelay, TimeUnit.MILLISECONDS, lambdaBatchExecutor).execute(() -> {
+					if (sent.isDone() || result.isDone() || concurrencyLimiter.hasWaiters(operation)
+							|| outstanding.getAndUpdate(n -> n != 1 ? n : n + 1) != 1) {
+						return;
+					}
+					log.info("🏁 {} call still running after {}ms (p{}), sending a hedged duplicate", operation,
+							hedgeDelay, hedgePolicy.getPercentile());
+					hedgePolicy.record(operation, "fired");
+					invokeWithRetryAndCircuitBreakerAsync(request, operation, analysisId, deadline, hedgeCancelled,
+							hedgeSent -> {
+							}).whenComplete((rawResponse, error) -> {
+								if (rawResponse != null && result.complete(rawResponse)) {
+									hedgePolicy.record(operation, "won");
+									primaryCancelled.complete(null);
+								} else if (outstanding.decrementAndGet() == 0) {
+									completeWith(result, rawResponse, error);
+								}
+							});
+				});
+
+		invokeWithRetryAndCircuitBreakerAsync(request, operation, analysisId, deadline, primaryCancelled,
+				onPrimarySent).whenComplete((rawResponse, error) -> {
+					if (rawResponse != null && result.complete(rawResponse)) {
+						hedgeCancelled.complete(null);
+					} else if (outstanding.decrementAndGet() == 0) {
+						completeWith(result, rawResponse, error);
+					}
+				});
+		return result;
+	}
+
+	private static void completeWith(CompletableFuture<String> result, String rawResponse, Throwable error) {
+		if (error != null) {
+			result.completeExceptionally(error);
+		} else {
+			result.complete(rawResponse);
 		}
+	}
 
-		Exception lastException = null;
+	/**
+	 * Retries, backoff and circuit breaking composed as future stages on LambdaAsyncClient.
+	 * No attempt starts after the deadline (epoch millis) or once cancelled is completed.
+	 * onSent is handed each attempt's call as it goes out. Completes with the raw response,
+	 * or null when the call failed or was skipped.
+	 */
+	private CompletableFuture<String> invokeWithRetryAndCircuitBreakerAsync(InvokeRequest request, String operation,
+			String analysisId, long deadline, CompletableFuture<Void> cancelled,
+			Consumer<CompletableFuture<?>> onSent) {
+		totalInvocations.incrementAndGet();
+		return attemptInvocation(request, operation, analysisId, 1, deadline, cancelled, onSent);
+	}
 
-		for (int attempt = 1; attempt <= MAX_LAMBDA_RETRIES; attempt++) {
-			try {
-				log.debug("🔄 Invoking Lambda for operation: {} (attempt {}/{})", operation, attempt,
-						MAX_LAMBDA_RETRIES);
+	private CompletableFuture<String> attemptInvocation(InvokeRequest request, String operation, String analysisId,
+			int attempt, long deadline, CompletableFuture<Void> cancelled, Consumer<CompletableFuture<?>> onSent) {
+		if (cancelled.isDone()) {
+			return CompletableFuture.completedFuture(null);
+		}
+		if (LambdaDeadlineBudget.remainingMs(deadline) == 0) {
+			log.warn("⏰ Deadline passed for operation: {}. Skipping attempt {}.", operation, attempt);
+			recordFailure(operation);
+			return CompletableFuture.completedFuture(null);
+		}
 
-				long startTime = System.currentTimeMillis();
-				InvokeResponse response = lambdaClient.invoke(request);
-				long duration = System.currentTimeMillis() - startTime;
+		// Wait, without holding a thread, for room under the adaptive in-flight limit and for this analysis's fair turn
+		return concurrencyLimiter.acquire(operation, analysisId).thenCompose(permit -> {
+			// Ask the breaker only once the call can go out, so a half-open trial is not held in the queue.
+			// Every attempt is a call the breaker judges, so retries stop as soon as it opens.
+			LambdaCircuitBreaker.Permission permission = circuitBreaker.tryAcquirePermission(operation);
+			if (permission == null) {
+				permit.release();
+				log.warn("🔴 Circuit breaker is {} for operation: {}. Skipping attempt {}.",
+						circuitBreaker.getState(operation), operation, attempt);
+				return CompletableFuture.completedFuture(null);
+			}
+			return invokeWithPermit(request, operation, analysisId, attempt, deadline, cancelled, onSent, permit,
+					permission);
+		});
+	}
 
-				if (response.functionError() != null) {
-					log.error("❌ Lambda function error for operation {}: {}", operation, response.functionError());
-					recordFailure(operation);
-					return null;
+	private CompletableFuture<String> invokeWithPermit(InvokeRequest request, String operation, String analysisId,
+			int attempt, long deadline, CompletableFuture<Void> cancelled, Consumer<CompletableFuture<?>> onSent,
+			AdaptiveConcurrencyLimiter.Permit permit, LambdaCircuitBreaker.Permission permission) {
+		// The permit may have come after the deadline or after the other hedged call answered
+		long remaining = LambdaDeadlineBudget.remainingMs(deadline);
+		if (cancelled.isDone() || remaining == 0) {
+			permit.release();
+			permission.release();
+			return CompletableFuture.completedFuture(null);
+		}
+		log.debug("🔄 Invoking Lambda for operation: {} (attempt {}/{})", operation, attempt, MAX_LAMBDA_RETRIES);
+
+		// Have the SDK abort at the stage deadline rather than wait out the full LAMBDA_TIMEOUT
+		InvokeRequest attemptRequest = remaining < LAMBDA_TIMEOUT.toMillis()
+				? request.toBuilder()
+						.overrideConfiguration(o -> o.apiCallTimeout(Duration.ofMillis(remaining))).build()
+				: request;
+
+		long startTime = System.currentTimeMillis();
+		CompletableFuture<InvokeResponse> call = lambdaAsyncClient.invoke(attemptRequest);
+		cancelled.thenRun(() -> call.cancel(true));
+		onSent.accept(call);
+		return call.handle((response, error) -> {
+			long duration = System.currentTimeMillis() - startTime;
+			if (error == null) {
+				boolean event = request.invocationType() == InvocationType.EVENT;
+				if (response.functionError() != null || response.statusCode() != successStatus(request)) {
+					permit.onDropped();
+					permission.onError(duration);
+				} else {
+					permit.onSuccess();
+					permission.onSuccess(duration);
+					if (!event) {
+						// An event start answers in milliseconds and says nothing about how long the function runs
+						hedgePolicy.recordLatency(operation, duration);
+					}
 				}
+				return CompletableFuture.completedFuture(
+						handleInvokeResponse(response, operation, duration, successStatus(request)));
+			}
 
-				if (response.statusCode() != 200) {
-					log.error("❌ Lambda invocation failed for operation {} with status code: {}", operation,
-							response.statusCode());
-					recordFailure(operation);
-					return null;
-				}
+			if (cancelled.isDone()) {
+				// The other hedged call answered first; this one says nothing about the backend
+				permit.release();
+				permission.release();
+				return CompletableFuture.<String>completedFuture(null);
+			}
 
-				// Success
-				recordSuccess(operation);
-				log.debug("✅ Lambda invocation successful for operation {} in {}ms", operation, duration);
-				String rawResponse = response.payload().asUtf8String();
-				log.debug("Raw Lambda response for {}: {}", operation, 
-				         rawResponse != null ? rawResponse.substring(0, Math.min(200, rawResponse.length())) : "null");
-				return rawResponse;
-
-			} catch (SdkClientException e) {
-				lastException = e;
-				log.warn("⚠️ Lambda invocation failed for operation {} (attempt {}/{}): {}", operation, attempt,
-						MAX_LAMBDA_RETRIES, e.getMessage());
-
-				if (attempt < MAX_LAMBDA_RETRIES) {
-					long delay = calculateExponentialBackoffDelay(attempt);
-					log.info("🕐 Waiting {}ms before retry attempt {}", delay, attempt + 1);
+			Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause()
+					: error;
+			boolean throttled = isThrottle(cause);
+			if (throttled) {
+				// Throttling says the backend is busy, not broken; leave that to the concurrency limit
+				permission.release();
+			} else {
+				permission.onError(duration);
+			}
+			if (!throttled && !(cause instanceof SdkClientException)) {
+				permit.release();
+				return CompletableFuture.<String>failedFuture(cause);
+			}
+			permit.onDropped();
+			if (throttled) {
+				rateLimitedInvocations.incrementAndGet();
+			}
 
-					try {
-						Thread.sleep(delay);
-					} catch (InterruptedException ie) {
-						Thread.currentThread().interrupt();
-						log.error("❌ Retry interrupted for operation: {}", operation);
-						break;
-					}
-				} else {
-					recordFailure(operation);
-					openCircuitBreaker(operation);
+			log.warn("⚠️ Lambda invocation {} for operation {} (attempt {}/{}): {}",
+					throttled ? "throttled" : "failed", operation, attempt, MAX_LAMBDA_RETRIES, cause.getMessage());
+
+			if (attempt < MAX_LAMBDA_RETRIES) {
+				long delay = calculateExponentialBackoffDelay(attempt);
+				if (delay < LambdaDeadlineBudget.remainingMs(deadline)) {
+					log.info("🕐 Waiting {}ms before retry attempt {}", delay, attempt + 1);
+					Executor backoff = CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS);
+					return CompletableFuture.runAsync(() -> {
+					}, backoff).thenCompose(
+							ignored -> attemptInvocation(request, operation, analysisId, attempt + 1, deadline,
+									cancelled, onSent));
 				}
+				recordFailure(operation);
+				log.error("⏰ Giving up on operation {}: its deadline passes before retry attempt {}", operation,
+						attempt + 1);
+				return CompletableFuture.<String>completedFuture(null);
 			}
+
+			recordFailure(operation);
+			log.error("❌ All {} retry attempts failed for operation: {}", MAX_LAMBDA_RETRIES, operation);
+			return CompletableFuture.<String>completedFuture(null);
+		}).thenCompose(Function.identity())
+				// Never leak a permit or a breaker permission, whatever went wrong above
+				.whenComplete((rawResponse, error) -> {
+					permit.release();
+					permission.release();
+				});
+	}
+
+	/**
+	 * Lambda or the Nova quota behind it pushing back on concurrency
+	 */
+	private static boolean isThrottle(Throwable error) {
+		return error instanceof TooManyRequestsException
+				|| (error instanceof SdkServiceException && ((SdkServiceException) error).statusCode() == 429);
+	}
+
+	/**
+	 * Lambda answers 202 once it has queued an event, and 200 with the result of a synchronous call
+	 */
+	private static int successStatus(InvokeRequest request) {
+		return request.invocationType() == InvocationType.EVENT ? 202 : 200;
+	}
+
+	private String handleInvokeResponse(InvokeResponse response, String operation, long duration,
+			int successStatus) {
+		if (response.functionError() != null) {
+			log.error("❌ Lambda function error for operation {}: {}", operation, response.functionError());
+			recordFailure(operation);
+			return null;
 		}
 
-		failedInvocations.incrementAndGet();
-		log.error("❌ All {} retry attempts failed for operation: {}", MAX_LAMBDA_RETRIES, operation);
-		return null;
+		if (response.statusCode() != successStatus) {
+			log.error("❌ Lambda invocation failed for operation {} with status code: {}", operation,
+					response.statusCode());
+			recordFailure(operation);
+			return null;
+		}
+
+		// Success
+		recordSuccess(operation);
+		log.debug("✅ Lambda invocation successful for operation {} in {}ms", operation, duration);
+		// An accepted event carries no payload
+		String rawResponse = response.payload() != null ? response.payload().asUtf8String() : "";
+		log.debug("Raw Lambda response for {}: {}", operation,
+				rawResponse != null ? rawResponse.substring(0, Math.min(200, rawResponse.length())) : "null");
+		return rawResponse;
+	}
+
+	/**
+	 * Wait for an invocation future, rethrowing its original runtime exception
+	 */
+	private static <T> T join(CompletableFuture<T> future) {
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw e;
+		}
 	}
 
 	/**
@@ -1354,28 +1762,6 @@ public class LambdaInvokerService {
 		return metrics;
 	}
 
-	private void enforceRateLimit(String operation) {
-		enforceRateLimit(operation, LAMBDA_RATE_LIMIT_DELAY);
-	}
-
-	private void enforceRateLimit(String operation, long delayMs) {
-		Long lastCall = lastInvocationTimes.get(operation);
-		if (lastCall != null) {
-			long timeSinceLastCall = System.currentTimeMillis() - lastCall;
-			if (timeSinceLastCall < delayMs) {
-				long waitTime = delayMs - timeSinceLastCall;
-				log.info("🐌 Rate limiting: waiting {}ms for operation {}", waitTime, operation);
-				rateLimitedInvocations.incrementAndGet();
-				try {
-					Thread.sleep(waitTime);
-				} catch (InterruptedException e) {
-					Thread.currentThread().interrupt();
-				}
-			}
-		}
-		lastInvocationTimes.put(operation, System.currentTimeMillis());
-	}
-
 	private boolean acquireAnalysisLock(String lockKey) {
 		long currentTime = System.currentTimeMillis();
 		Long existingLock = analysisLocks.get(lockKey);
@@ -1393,34 +1779,14 @@ public class LambdaInvokerService {
 	}
 
 	private boolean isCircuitBreakerOpen(String operation) {
-		Long openTime = circuitBreakerOpenTimes.get(operation);
-		if (openTime == null)
-			return false;
-
-		if (System.currentTimeMillis() - openTime > CIRCUIT_BREAKER_TIMEOUT_MS) {
-			circuitBreakerOpenTimes.remove(operation);
-			failureCounters.remove(operation);
-			log.info("🟢 Circuit breaker CLOSED for operation: {}", operation);
-			return false;
-		}
-		return true;
-	}
-
-	private void openCircuitBreaker(String operation) {
-		circuitBreakerOpenTimes.put(operation, System.currentTimeMillis());
-		log.warn("🔴 Circuit breaker OPENED for operation: {}", operation);
+		return circuitBreaker.isOpen(operation);
 	}
 
 	private void recordSuccess(String operation) {
-		failureCounters.remove(operation);
 		successfulInvocations.incrementAndGet();
 	}
 
 	private void recordFailure(String operation) {
-		int failures = failureCounters.computeIfAbsent(operation, k -> new AtomicInteger(0)).incrementAndGet();
-		if (failures >= CIRCUIT_BREAKER_FAILURE_THRESHOLD) {
-			openCircuitBreaker(operation);
-		}
 		failedInvocations.incrementAndGet();
 	}
 
@@ -1433,45 +1799,6 @@ public class LambdaInvokerService {
 		return delay + jitter;
 	}
 
-	private List<List<Map<String, Object>>> createBatches(List<Map<String, Object>> items, int batchSize) {
-		List<List<Map<String, Object>>> batches = new ArrayList<>();
-		for (int i = 0; i < items.size(); i += batchSize) {
-			int end = Math.min(i + batchSize, items.size());
-			batches.add(items.subList(i, end));
-		}
-		return batches;
-	}
-
-	private Map<String, Object> createBatchPayload(String sessionId, String analysisId, String repository,
-	        String branch, List<Map<String, Object>> items, String stage, int scanNumber, int batchNumber,
-	        int totalBatches) {
-
-	    // Validate file paths before creating payload
-	    if (log.isDebugEnabled()) {
-	        log.debug("📦 Creating batch payload for {} (batch {}/{})", stage, batchNumber, totalBatches);
-	        items.forEach(item -> {
-	            String path = (String) item.get("path");
-	            String name = (String) item.get("name");
-	            if (path == null || path.trim().isEmpty()) {
-	                log.warn("⚠️ Missing path for file: {} in {} batch", name, stage);
-	            }
-	        });
-	    }
-
-	    Map<String, Object> payload = new HashMap<>();
-	    payload.put("sessionId", sessionId);
-	    payload.put("analysisId", analysisId);
-	    payload.put("repository", repository);
-	    payload.put("branch", branch);
-	    payload.put(stage.equals("screening") ? "files" : "files", items);
-		payload.put("stage", stage);
-		payload.put("scanNumber", scanNumber);
-		payload.put("batchInfo",
-				Map.of("batchNumber", batchNumber, "totalBatches", totalBatches, "batchSize", items.size()));
-		payload.put("timestamp", System.currentTimeMillis());
-		return payload;
-	}
-
 	/**
 	 * Monitoring and health check methods
 	 */
@@ -1483,8 +1810,12 @@ public class LambdaInvokerService {
 		metrics.put("rateLimitedInvocations", rateLimitedInvocations.get());
 		metrics.put("successRate",
 				totalInvocations.get() > 0 ? (double) successfulInvocations.get() / totalInvocations.get() * 100 : 0.0);
-		metrics.put("activeCircuitBreakers", circuitBreakerOpenTimes.size());
+		metrics.put("activeCircuitBreakers", circuitBreaker.openCount());
 		metrics.put("activeLocks", analysisLocks.size());
+		metrics.put("concurrencyLimits", Map.of(
+				"screening", concurrencyLimiter.getLimit("screening"),
+				"detection", concurrencyLimiter.getLimit("detection"),
+				"suggestions", concurrencyLimiter.getLimit("suggestions")));
 		return metrics;
 	}
 
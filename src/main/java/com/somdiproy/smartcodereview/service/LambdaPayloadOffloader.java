@@ -0,0 +1,241 @@
+package com.somdiproy.smartcodereview.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.io.ByteStreams;
+import com.somdiproy.smartcodereview.dto.LambdaRequest;
+import com.somdiproy.smartcodereview.util.JsonPayloadWriter;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Claim-check mode for Lambda payloads.
+ * Requests larger than the threshold are gzip-compressed into the claim-check store and the
+ * function receives only a pointer plus the small envelope fields; functions answer the same way
+ * with a {"claimCheck": {...}} response when their result is too large to return inline.
+ * Only the compressed form of an offloaded request is ever held in memory.
+ */
+@Component
+public class LambdaPayloadOffloader {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(LambdaPayloadOffloader.class);
+
+    private static final String CLAIM_CHECK_FIELD = "claimCheck";
+
+    // Pointer responses are tiny, anything larger is an ordinary inline result
+    private static final int MAX_POINTER_RESPONSE_LENGTH = 4096;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Value("${aws.lambda.claim-check.enabled:false}")
+    private boolean enabled;
+
+    @Value("${aws.lambda.claim-check.threshold-bytes:1048576}") // 1MB default
+    private long thresholdBytes;
+
+    // Event (async) invocations accept far smaller payloads than synchronous ones
+    @Value("${aws.lambda.claim-check.event-threshold-bytes:262144}") // 256KB default
+    private long eventThresholdBytes;
+
+    @Value("${aws.lambda.claim-check.store:s3}")
+    private String storeType;
+
+    @Value("${aws.lambda.claim-check.prefix:lambda-payloads/}")
+    private String keyPrefix;
+
+    @Value("${aws.lambda.claim-check.endpoint:}")
+    private String endpoint;
+
+    @Value("${aws.s3.bucket}")
+    private String bucket;
+
+    @Value("${aws.region}")
+    private String awsRegion;
+
+    @Autowired
+    private S3Client s3Client;
+
+    @Autowired
+    private AwsCredentialsProvider credentialsProvider;
+
+    private ClaimCheckStore store;
+
+    @PostConstruct
+    void init() {
+        if (!enabled) {
+            return;
+        }
+        if ("memory".equalsIgnoreCase(storeType)) {
+            store = new InMemoryClaimCheckStore();
+        } else if (endpoint != null && !endpoint.isBlank()) {
+            // S3-compatible stand-in such as MinIO or LocalStack
+            store = new S3ClaimCheckStore(S3Client.builder()
+                    .endpointOverride(URI.create(endpoint))
+                    .forcePathStyle(true)
+                    .region(Region.of(awsRegion))
+                    .credentialsProvider(credentialsProvider)
+                    .build(), bucket);
+        } else {
+            store = new S3ClaimCheckStore(s3Client, bucket);
+        }
+        log.info("🎫 Lambda claim-check enabled: payloads above {} bytes ({} for events) go to {} ({})",
+                 thresholdBytes, Math.min(thresholdBytes, eventThresholdBytes), store.location(), storeType);
+    }
+
+    public boolean isEnabled() {
+        return store != null;
+    }
+
+    /**
+     * Serialize a request payload, offloading it to the store when it exceeds the threshold
+     */
+    public LambdaPayload prepare(LambdaRequest payload, String operation) throws IOException {
+        return prepare(payload, operation, thresholdBytes);
+    }
+
+    /**
+     * Serialize a request payload for an event invocation, offloading it past the event threshold
+     */
+    public LambdaPayload prepareEvent(LambdaRequest payload, String operation) throws IOException {
+        return prepare(payload, operation, Math.min(thresholdBytes, eventThresholdBytes));
+    }
+
+    private LambdaPayload prepare(LambdaRequest payload, String operation, long threshold) throws IOException {
+        long size = JsonPayloadWriter.sizeOf(objectMapper, payload);
+        if (!isEnabled() || size <= threshold) {
+            byte[] json = JsonPayloadWriter.write(objectMapper, payload, size);
+            return new LambdaPayload(SdkBytes.fromByteArrayUnsafe(json), json.length, null);
+        }
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream((int) Math.min(size / 4, Integer.MAX_VALUE - 8));
+        try (OutputStream gzip = new GZIPOutputStream(compressed)) {
+            objectMapper.writeValue(gzip, payload);
+        }
+
+        String key = keyPrefix + operation.toLowerCase(Locale.ROOT) + "/" + UUID.randomUUID() + ".json.gz";
+        store.put(key, compressed.toByteArray());
+
+        Map<String, Object> pointer = new HashMap<>();
+        pointer.put("bucket", store.location());
+        pointer.put("key", key);
+        pointer.put("contentEncoding", "gzip");
+        pointer.put("size", size);
+
+        // Keep the small routing fields inline so the function can log and dispatch before fetching
+        Map<String, Object> envelope = new HashMap<>(payload.routingFields());
+        envelope.put(CLAIM_CHECK_FIELD, pointer);
+
+        log.info("🎫 Offloaded {} payload ({} bytes, {} compressed) to {}/{}", operation, size, compressed.size(),
+                 store.location(), key);
+        return new LambdaPayload(SdkBytes.fromByteArrayUnsafe(objectMapper.writeValueAsBytes(envelope)), size, key);
+    }
+
+    /**
+     * Delete the offloaded request once the invocation has finished; for an event invocation,
+     * once its completion has arrived or the wait for it has ended
+     */
+    public void release(LambdaPayload payload) {
+        if (payload != null && payload.claimKey != null) {
+            store.delete(payload.claimKey);
+        }
+    }
+
+    /**
+     * Replace a claim-check pointer response with the result it points to
+     */
+    public String resolveResponse(String rawResponse, String operation) {
+        if (!isEnabled() || rawResponse == null || rawResponse.length() > MAX_POINTER_RESPONSE_LENGTH
+                || !rawResponse.contains(CLAIM_CHECK_FIELD)) {
+            return rawResponse;
+        }
+        try {
+            JsonNode pointer = objectMapper.readTree(rawResponse).path(CLAIM_CHECK_FIELD);
+            String key = pointer.path("key").asText(null);
+            if (key == null) {
+                return rawResponse;
+            }
+            String pointerBucket = pointer.path("bucket").asText(store.location());
+            if (!pointerBucket.equals(store.location())) {
+                log.warn("⚠️ {} response points to {} but claim-check store is {}", operation, pointerBucket,
+                         store.location());
+            }
+
+            boolean gzipped = "gzip".equalsIgnoreCase(pointer.path("contentEncoding").asText("gzip"));
+            String result;
+            try (InputStream in = gzipped ? new GZIPInputStream(store.open(key)) : store.open(key)) {
+                result = new String(ByteStreams.toByteArray(in), StandardCharsets.UTF_8);
+            }
+            store.delete(key);
+            log.info("🎫 Fetched {} result from claim-check {} ({} bytes)", operation, key, result.length());
+            return result;
+        } catch (IOException e) {
+            log.error("❌ Failed to resolve claim-check response for {}: {}", operation, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Full request behind a claim-check envelope, for in-process stand-ins of the functions
+     */
+    public byte[] resolveRequest(byte[] payload) throws IOException {
+        if (!isEnabled() || payload.length > MAX_POINTER_RESPONSE_LENGTH) {
+            return payload;
+        }
+        String key = objectMapper.readTree(payload).path(CLAIM_CHECK_FIELD).path("key").asText(null);
+        if (key == null) {
+            return payload;
+        }
+        try (InputStream in = new GZIPInputStream(store.open(key))) {
+            return ByteStreams.toByteArray(in);
+        }
+    }
+
+    /**
+     * Bytes to send to Lambda, and the claim-check key when the payload was offloaded
+     */
+    public static class LambdaPayload {
+        private final SdkBytes bytes;
+        private final long size;
+        private final String claimKey;
+
+        private LambdaPayload(SdkBytes bytes, long size, String claimKey) {
+            this.bytes = bytes;
+            this.size = size;
+            this.claimKey = claimKey;
+        }
+
+        public SdkBytes getBytes() {
+            return bytes;
+        }
+
+        /**
+         * Size of the full JSON payload, whether or not it was offloaded
+         */
+        public long getSize() {
+            return size;
+        }
+
+        public boolean isOffloaded() {
+            return claimKey != null;
+        }
+    }
+}
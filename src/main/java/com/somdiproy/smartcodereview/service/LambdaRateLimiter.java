@@ -0,0 +1,168 @@
+package com.somdiproy.smartcodereview.service;
+
+import com.somdiproy.smartcodereview.util.LambdaStages;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-operation token buckets for Lambda calls.
+ * A caller gets a permit straight away while the bucket has a token and nobody is waiting;
+ * otherwise it waits, without a thread sleeping, and tokens are handed to waiters as they refill
+ * in LambdaWorkScheduler's fair-share order, so one large analysis queued first cannot claim
+ * every token ahead of the others.
+ */
+@Component
+public class LambdaRateLimiter {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(LambdaRateLimiter.class);
+
+    public static final String SCREENING = "screening";
+    public static final String DETECTION = "detection";
+    public static final String SUGGESTIONS = "suggestions";
+
+    @Value("${aws.lambda.rate-limit.min-interval-between-calls:5000}")
+    private long minIntervalBetweenCalls;
+
+    @Value("${aws.lambda.rate-limit.max-concurrent-executions:1}")
+    private int maxConcurrentExecutions;
+
+    @Value("${aws.lambda.rate-limit.nova-api-delay:8000}")
+    private long novaApiDelay;
+
+    @Value("${aws.lambda.rate-limit.max-concurrent-nova-calls:1}")
+    private int maxConcurrentNovaCalls;
+
+    private final LambdaWorkScheduler workScheduler;
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "lambda-rate-limiter");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public LambdaRateLimiter(LambdaWorkScheduler workScheduler) {
+        this.workScheduler = workScheduler;
+    }
+
+    @PostConstruct
+    void init() {
+        buckets.put(SCREENING, new TokenBucket(maxConcurrentExecutions, minIntervalBetweenCalls));
+        buckets.put(DETECTION, new TokenBucket(maxConcurrentExecutions, minIntervalBetweenCalls));
+        // Suggestions are the Nova-bound calls, so the Nova API spacing applies to them
+        buckets.put(SUGGESTIONS, new TokenBucket(maxConcurrentNovaCalls, novaApiDelay));
+        log.info("🪣 Lambda rate limits: {}", describe());
+    }
+
+    /**
+     * Active spacing of each bucket, for startup logs
+     */
+    public String describe() {
+        return String.format("screening/detection burst %d every %dms, suggestions (Nova) burst %d every %dms",
+                maxConcurrentExecutions, minIntervalBetweenCalls, maxConcurrentNovaCalls, novaApiDelay);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        timer.shutdownNow();
+    }
+
+    /**
+     * Complete once a token is available and it is the analysis's turn, without blocking the caller
+     */
+    public CompletableFuture<Void> acquireAsync(String operation, String analysisId) {
+        return bucketFor(operation).acquire(analysisId);
+    }
+
+    /**
+     * Batch variants such as "detection_batch" draw from the base operation's bucket
+     */
+    private TokenBucket bucketFor(String operation) {
+        return buckets.computeIfAbsent(LambdaStages.stageOf(operation), k -> new TokenBucket(maxConcurrentExecutions, minIntervalBetweenCalls));
+    }
+
+    /**
+     * Classic token bucket whose waiters are served in fair-share order as tokens refill
+     */
+    private class TokenBucket {
+        private final double capacity;
+        private final long refillIntervalNanos;
+        private final LambdaWorkScheduler.FairQueue<CompletableFuture<Void>> waiters = workScheduler.newQueue();
+        private double tokens;
+        private long lastRefillNanos;
+        private boolean drainScheduled;
+
+        private TokenBucket(int capacity, long refillIntervalMs) {
+            this.capacity = Math.max(1, capacity);
+            this.refillIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, refillIntervalMs));
+            this.tokens = this.capacity;
+            this.lastRefillNanos = System.nanoTime();
+        }
+
+        private CompletableFuture<Void> acquire(String analysisId) {
+            if (refillIntervalNanos == 0) {
+                return CompletableFuture.completedFuture(null);
+            }
+            synchronized (this) {
+                refill(System.nanoTime());
+                if (waiters.isEmpty() && tokens >= 1) {
+                    tokens -= 1;
+                    return CompletableFuture.completedFuture(null);
+                }
+                CompletableFuture<Void> waiter = new CompletableFuture<>();
+                waiters.add(analysisId, waiter);
+                scheduleDrain();
+                return waiter;
+            }
+        }
+
+        private void refill(long nowNanos) {
+            long elapsed = nowNanos - lastRefillNanos;
+            if (elapsed > 0) {
+                tokens = Math.min(capacity, tokens + (double) elapsed / refillIntervalNanos);
+                lastRefillNanos = nowNanos;
+            }
+        }
+
+        /**
+         * Wake up when the next token is due; called with the lock held
+         */
+        private void scheduleDrain() {
+            if (drainScheduled || waiters.isEmpty()) {
+                return;
+            }
+            drainScheduled = true;
+            long waitNanos = tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) * refillIntervalNanos);
+            timer.schedule(this::drain, waitNanos, TimeUnit.NANOSECONDS);
+        }
+
+        private void drain() {
+            List<CompletableFuture<Void>> granted = new ArrayList<>();
+            synchronized (this) {
+                drainScheduled = false;
+                refill(System.nanoTime());
+                while (tokens >= 1 && !waiters.isEmpty()) {
+                    CompletableFuture<Void> waiter = waiters.poll();
+                    // A waiter cancelled by its caller does not use up a token
+                    if (!waiter.isDone()) {
+                        tokens -= 1;
+                        granted.add(waiter);
+                    }
+                }
+                scheduleDrain();
+            }
+            // Complete outside the lock, the permit holders go on to invoke Lambda
+            granted.forEach(waiter -> waiter.complete(null));
+        }
+    }
+}
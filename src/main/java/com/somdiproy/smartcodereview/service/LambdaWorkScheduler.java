@@ -0,0 +1,232 @@
+package com.somdiproy.smartcodereview.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fair-share order for Lambda work across concurrent analyses.
+ * Every analysis belongs to a flow: its organization, or its session for personal and
+ * unknown organizations (or everywhere when share-by=session). Waiting calls are queued per
+ * flow and handed permits in start-time fair queuing order, so each backlogged flow gets
+ * permits in proportion to its weight however many calls it has queued. Calls of an analysis
+ * with at most nearly-finished-calls left in its current stage go first, so small scans
+ * finish in seconds while a large scan is running.
+ */
+@Component
+public class LambdaWorkScheduler {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(LambdaWorkScheduler.class);
+
+    private static final String ANONYMOUS = "anonymous";
+
+    @Value("${aws.lambda.scheduler.fair-share.enabled:true}")
+    private boolean enabled;
+
+    @Value("${aws.lambda.scheduler.share-by:organization}")
+    private String shareBy;
+
+    // Comma-separated flow:weight pairs, e.g. acme:2,initech:0.5
+    @Value("${aws.lambda.scheduler.weights:}")
+    private String weightSpec;
+
+    @Value("${aws.lambda.scheduler.nearly-finished-calls:2}")
+    private int nearlyFinishedCalls;
+
+    private final Map<String, Work> work = new ConcurrentHashMap<>();
+    private final Map<String, Double> weights = new HashMap<>();
+
+    @PostConstruct
+    void init() {
+        for (String pair : weightSpec.split(",")) {
+            int colon = pair.lastIndexOf(':');
+            if (colon <= 0) {
+                continue;
+            }
+            try {
+                double weight = Double.parseDouble(pair.substring(colon + 1).trim());
+                if (weight > 0) {
+                    weights.put(pair.substring(0, colon).trim().toLowerCase(), weight);
+                }
+            } catch (NumberFormatException e) {
+                log.warn("⚠️ Ignoring scheduler weight '{}': {}", pair, e.getMessage());
+            }
+        }
+        log.info("⚖️ Lambda fair-share scheduling {} (share by {}, weights {})",
+                 enabled ? "enabled" : "disabled", shareBy, weights);
+    }
+
+    /**
+     * Put an analysis's calls in its session's or organization's flow
+     */
+    public void register(String analysisId, String sessionId, String organization) {
+        if (analysisId == null) {
+            return;
+        }
+        String flow = "session".equalsIgnoreCase(shareBy) || organization == null || organization.isBlank()
+                || "personal".equalsIgnoreCase(organization) || "unknown".equalsIgnoreCase(organization)
+                ? "session:" + sessionId : organization.toLowerCase();
+        work.put(analysisId, new Work(flow, weights.getOrDefault(flow, 1.0)));
+    }
+
+    public void unregister(String analysisId) {
+        if (analysisId != null) {
+            work.remove(analysisId);
+        }
+    }
+
+    /**
+     * An analysis starts a stage that takes this many Lambda calls
+     */
+    public void startStage(String analysisId, int calls) {
+        Work analysis = analysisId != null ? work.get(analysisId) : null;
+        if (analysis != null) {
+            analysis.remainingCalls.set(calls);
+        }
+    }
+
+    /**
+     * One of the analysis's calls for its current stage is done
+     */
+    public void callFinished(String analysisId) {
+        Work analysis = analysisId != null ? work.get(analysisId) : null;
+        if (analysis != null) {
+            analysis.remainingCalls.updateAndGet(n -> Math.max(0, n - 1));
+        }
+    }
+
+    public <T> FairQueue<T> newQueue() {
+        return new FairQueue<>();
+    }
+
+    private Work workOf(String analysisId) {
+        Work analysis = enabled && analysisId != null ? work.get(analysisId) : null;
+        return analysis != null ? analysis : Work.UNREGISTERED;
+    }
+
+    private static class Work {
+        private static final Work UNREGISTERED = new Work(ANONYMOUS, 1.0);
+
+        private final String flow;
+        private final double weight;
+        // Unknown until the first stage starts; never counts as nearly finished
+        private final AtomicInteger remainingCalls = new AtomicInteger(Integer.MAX_VALUE);
+
+        private Work(String flow, double weight) {
+            this.flow = flow;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * Waiting items in fair-share order. Not thread-safe; callers hold their own lock.
+     */
+    public class FairQueue<T> {
+        private final Map<String, Flow<T>> flows = new HashMap<>();
+        private double virtualTime;
+        private long sequence;
+        private int size;
+
+        public void add(String analysisId, T item) {
+            Work analysis = workOf(analysisId);
+            Flow<T> flow = flows.computeIfAbsent(analysis.flow, k -> new Flow<>());
+            if (flow.entries.isEmpty()) {
+                // A flow that was idle gets no credit for the time it had nothing queued
+                flow.tag = Math.max(flow.tag, virtualTime);
+            }
+            flow.entries.add(new Entry<>(analysis, item, sequence++));
+            size++;
+        }
+
+        /**
+         * Remove the next item: nearly finished analyses first, then the flow with the lowest
+         * virtual start tag, then the analysis with the fewest calls left, then arrival order
+         */
+        public T poll() {
+            Flow<T> bestFlow = null;
+            Entry<T> best = null;
+            for (Flow<T> flow : flows.values()) {
+                for (Entry<T> entry : flow.entries) {
+                    if (best == null || compare(entry, flow, best, bestFlow) < 0) {
+                        best = entry;
+                        bestFlow = flow;
+                    }
+                }
+            }
+            if (best == null) {
+                return null;
+            }
+
+            bestFlow.entries.remove(best);
+            size--;
+            virtualTime = bestFlow.tag;
+            bestFlow.tag += 1.0 / best.analysis.weight;
+            pruneIdleFlows();
+            return best.item;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public boolean isEmpty() {
+            return size == 0;
+        }
+
+        private int compare(Entry<T> a, Flow<T> aFlow, Entry<T> b, Flow<T> bFlow) {
+            int byPriority = Boolean.compare(!isNearlyFinished(a), !isNearlyFinished(b));
+            if (byPriority != 0) {
+                return byPriority;
+            }
+            int byTag = Double.compare(aFlow.tag, bFlow.tag);
+            if (byTag != 0) {
+                return byTag;
+            }
+            int byRemaining = Integer.compare(a.analysis.remainingCalls.get(), b.analysis.remainingCalls.get());
+            return byRemaining != 0 ? byRemaining : Long.compare(a.sequence, b.sequence);
+        }
+
+        private boolean isNearlyFinished(Entry<T> entry) {
+            return entry.analysis != Work.UNREGISTERED
+                    && entry.analysis.remainingCalls.get() <= nearlyFinishedCalls;
+        }
+
+        /**
+         * Idle flows that are not ahead of virtual time would restart at it anyway
+         */
+        private void pruneIdleFlows() {
+            Iterator<Flow<T>> iterator = flows.values().iterator();
+            while (iterator.hasNext()) {
+                Flow<T> flow = iterator.next();
+                if (flow.entries.isEmpty() && flow.tag <= virtualTime) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    private static class Flow<T> {
+        private final List<Entry<T>> entries = new ArrayList<>();
+        private double tag;
+    }
+
+    private static class Entry<T> {
+        private final Work analysis;
+        private final T item;
+        private final long sequence;
+
+        private Entry(Work analysis, T item, long sequence) {
+            this.analysis = analysis;
+            this.item = item;
+            this.sequence = sequence;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.somdiproy.smartcodereview.service;
+
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Claim-check payloads stored as gzip objects in an S3 bucket
+ */
+public class S3ClaimCheckStore implements ClaimCheckStore {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(S3ClaimCheckStore.class);
+
+    private final S3Client s3Client;
+    private final String bucket;
+
+    public S3ClaimCheckStore(S3Client s3Client, String bucket) {
+        this.s3Client = s3Client;
+        this.bucket = bucket;
+    }
+
+    @Override
+    public String location() {
+        return bucket;
+    }
+
+    @Override
+    public void put(String key, byte[] data) throws IOException {
+        try {
+            s3Client.putObject(PutObjectRequest.builder()
+                            .bucket(bucket)
+                            .key(key)
+                            .contentType("application/json")
+                            .contentEncoding("gzip")
+                            .build(),
+                    RequestBody.fromBytes(data));
+        } catch (SdkException e) {
+            throw new IOException("Failed to write s3://" + bucket + "/" + key + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        try {
+            return s3Client.getObject(GetObjectRequest.builder().bucket(bucket).key(key).build());
+        } catch (SdkException e) {
+            throw new IOException("Failed to read s3://" + bucket + "/" + key + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void delete(String key) {
+        try {
+            s3Client.deleteObject(DeleteObjectRequest.builder().bucket(bucket).key(key).build());
+        } catch (SdkException e) {
+            // Left for the bucket's lifecycle rule to expire
+            log.warn("⚠️ Failed to delete claim-check object s3://{}/{}: {}", bucket, key, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,408 @@
+package com.somdiproy.smartcodereview.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.awscore.AwsRequestOverrideConfiguration;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.core.exception.ApiCallTimeoutException;
+import software.amazon.awssdk.services.lambda.LambdaAsyncClient;
+import software.amazon.awssdk.services.lambda.model.InvocationType;
+import software.amazon.awssdk.services.lambda.model.InvokeRequest;
+import software.amazon.awssdk.services.lambda.model.InvokeResponse;
+import software.amazon.awssdk.services.lambda.model.RequestTooLargeException;
+import software.amazon.awssdk.services.lambda.model.TooManyRequestsException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process stand-in for the screening, detection and suggestions functions (and the Nova
+ * calls behind them), active with the lambda-sim profile in place of the real Lambda client.
+ * Each call sleeps for a log-normal latency given by the stage's median and p99 plus a per-file
+ * cost, without holding a thread. It answers with responses shaped like the real functions'.
+ * Throttles come from a random rate and from a reserved-concurrency cap. Function errors are
+ * injected at a configurable rate, and requests or responses over the payload limit are rejected
+ * as Lambda would. Detected issues are derived from each file's SHA, so the same file always gets
+ * the same issues. Suggestions are only returned inline, not written to the issue-details table.
+ * Event invocations run in the background after the same latency and announce their end on the
+ * in-memory completion queue, as the real suggestions function does on SQS.
+ */
+@Component("lambdaAsyncClient")
+@Profile("lambda-sim")
+public class SimulatedLambdaAsyncClient implements LambdaAsyncClient {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(SimulatedLambdaAsyncClient.class);
+
+    // z-score of the 99th percentile of a standard normal distribution
+    private static final double Z_99 = 2.326;
+
+    // type, category, severity, description
+    private static final String[][] ISSUE_CATALOG = {
+            {"SQL_INJECTION", "security", "CRITICAL", "User input is concatenated into a SQL query"},
+            {"HARDCODED_CREDENTIALS", "security", "HIGH", "Credentials are hardcoded in source"},
+            {"XSS", "security", "HIGH", "User input is written to HTML without encoding"},
+            {"MISSING_ERROR_HANDLING", "quality", "MEDIUM", "Exception is swallowed without handling"},
+            {"INEFFICIENT_LOOP", "performance", "MEDIUM", "Collection is searched linearly inside a loop"},
+            {"HIGH_CYCLOMATIC_COMPLEXITY", "quality", "LOW", "Method has too many branches"}};
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Value("${aws.lambda.functions.screening}")
+    private String screeningFunctionArn;
+
+    @Value("${aws.lambda.functions.detection}")
+    private String detectionFunctionArn;
+
+    @Value("${aws.lambda.simulator.screening.median-ms:800}")
+    private long screeningMedianMs;
+
+    @Value("${aws.lambda.simulator.screening.p99-ms:4000}")
+    private long screeningP99Ms;
+
+    @Value("${aws.lambda.simulator.detection.median-ms:6000}")
+    private long detectionMedianMs;
+
+    @Value("${aws.lambda.simulator.detection.p99-ms:45000}")
+    private long detectionP99Ms;
+
+    @Value("${aws.lambda.simulator.suggestions.median-ms:9000}")
+    private long suggestionsMedianMs;
+
+    @Value("${aws.lambda.simulator.suggestions.p99-ms:60000}")
+    private long suggestionsP99Ms;
+
+    @Value("${aws.lambda.simulator.per-file-ms:50}")
+    private long perFileMs;
+
+    @Value("${aws.lambda.simulator.throttle-rate:0.02}")
+    private double throttleRate;
+
+    @Value("${aws.lambda.simulator.error-rate:0.01}")
+    private double errorRate;
+
+    @Value("${aws.lambda.simulator.reserved-concurrency:10}")
+    private int reservedConcurrency;
+
+    @Value("${aws.lambda.simulator.max-request-bytes:6291456}") // Lambda's 6MB synchronous limit
+    private long maxRequestBytes;
+
+    @Value("${aws.lambda.simulator.max-response-bytes:6291456}")
+    private long maxResponseBytes;
+
+    @Value("${aws.lambda.simulator.max-issues-per-file:3}")
+    private int maxIssuesPerFile;
+
+    private final LambdaPayloadOffloader payloadOffloader;
+    private final StageCompletionListener completionListener;
+    private final MeterRegistry meterRegistry;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final ScheduledExecutorService timer = Executors.newScheduledThreadPool(2, r -> {
+        Thread thread = new Thread(r, "lambda-simulator");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public SimulatedLambdaAsyncClient(LambdaPayloadOffloader payloadOffloader,
+                                      StageCompletionListener completionListener, MeterRegistry meterRegistry) {
+        this.payloadOffloader = payloadOffloader;
+        this.completionListener = completionListener;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    void init() {
+        log.warn("🧪 Lambda simulator active: no real functions will be invoked (throttle rate {}, error rate {}, "
+                 + "reserved concurrency {})", throttleRate, errorRate, reservedConcurrency);
+        log.info("🧪 Simulated latency median/p99: screening {}/{}ms, detection {}/{}ms, suggestions {}/{}ms, "
+                 + "+{}ms per file", screeningMedianMs, screeningP99Ms, detectionMedianMs, detectionP99Ms,
+                 suggestionsMedianMs, suggestionsP99Ms, perFileMs);
+    }
+
+    @Override
+    public String serviceName() {
+        return SERVICE_NAME;
+    }
+
+    @Override
+    public void close() {
+        timer.shutdownNow();
+    }
+
+    @Override
+    public CompletableFuture<InvokeResponse> invoke(InvokeRequest request) {
+        String stage = stageOf(request.functionName());
+        if (request.invocationType() == InvocationType.EVENT) {
+            count(stage, "async");
+            runEvent(stage, request);
+            return CompletableFuture.completedFuture(InvokeResponse.builder().statusCode(202).build());
+        }
+
+        byte[] payload = request.payload() != null ? request.payload().asByteArray() : new byte[0];
+        if (payload.length > maxRequestBytes) {
+            count(stage, "too_large");
+            return CompletableFuture.failedFuture(RequestTooLargeException.builder().statusCode(413)
+                    .message("Request must be smaller than " + maxRequestBytes
+                            + " bytes for the InvokeFunction operation")
+                    .build());
+        }
+        if (inFlight.incrementAndGet() > reservedConcurrency
+                || ThreadLocalRandom.current().nextDouble() < throttleRate) {
+            inFlight.decrementAndGet();
+            count(stage, "throttled");
+            return CompletableFuture.failedFuture(TooManyRequestsException.builder().statusCode(429)
+                    .message("Rate Exceeded.").reason("ReservedFunctionConcurrentInvocationLimitExceeded")
+                    .build());
+        }
+
+        JsonNode body;
+        try {
+            body = objectMapper.readTree(payloadOffloader.resolveRequest(payload));
+        } catch (IOException e) {
+            inFlight.decrementAndGet();
+            count(stage, "error");
+            return CompletableFuture.completedFuture(functionError("Runtime.UnmarshalError", e.getMessage()));
+        }
+
+        int items = Math.max(body.path("files").size(), body.path("issues").size());
+        long latencyMs = latencyMs(stage, items);
+        CompletableFuture<InvokeResponse> response = new CompletableFuture<>();
+        timer.schedule(() -> {
+            try {
+                response.complete(respond(stage, body));
+            } catch (Exception e) {
+                response.complete(functionError("Runtime.HandlerError", e.getMessage()));
+            } finally {
+                // A caller that gave up does not stop the function, just as with real Lambda
+                inFlight.decrementAndGet();
+            }
+        }, latencyMs, TimeUnit.MILLISECONDS);
+
+        // Honour the per-call timeout the invoker sets from its stage deadline
+        Duration timeout = request.overrideConfiguration().flatMap(AwsRequestOverrideConfiguration::apiCallTimeout)
+                .orElse(null);
+        if (timeout != null && timeout.toMillis() < latencyMs) {
+            timer.schedule(() -> response.completeExceptionally(ApiCallTimeoutException.builder()
+                    .message("Client execution did not complete before the specified timeout configuration: "
+                            + timeout.toMillis() + " millis")
+                    .build()), timeout.toMillis(), TimeUnit.MILLISECONDS);
+        }
+        return response;
+    }
+
+    /**
+     * Run an event invocation after the stage's latency and publish its completion message
+     */
+    private void runEvent(String stage, InvokeRequest request) {
+        JsonNode body;
+        try {
+            byte[] payload = request.payload() != null ? request.payload().asByteArray() : new byte[0];
+            body = objectMapper.readTree(payloadOffloader.resolveRequest(payload));
+        } catch (IOException e) {
+            log.warn("🧪 Dropping unreadable {} event: {}", stage, e.getMessage());
+            return;
+        }
+
+        String analysisId = body.path("analysisId").asText("");
+        int items = Math.max(body.path("files").size(), body.path("issues").size());
+        timer.schedule(() -> {
+            boolean succeeded;
+            try {
+                succeeded = respond(stage, body).functionError() == null;
+            } catch (Exception e) {
+                succeeded = false;
+            }
+            publishCompletion(analysisId, stage, succeeded ? "completed" : "failed");
+        }, latencyMs(stage, items), TimeUnit.MILLISECONDS);
+    }
+
+    private void publishCompletion(String analysisId, String stage, String status) {
+        if (!(completionListener.getQueue() instanceof InMemoryCompletionQueue queue)) {
+            log.warn("🧪 No in-memory completion queue; {} completion for analysis {} not published "
+                     + "(set aws.sqs.completion.enabled=true and aws.sqs.completion.queue=memory)", stage, analysisId);
+            return;
+        }
+        ObjectNode message = objectMapper.createObjectNode();
+        message.put("analysisId", analysisId);
+        message.put("stage", stage);
+        message.put("status", status);
+        queue.publish(message.toString());
+    }
+
+    private InvokeResponse respond(String stage, JsonNode body) throws IOException {
+        if (ThreadLocalRandom.current().nextDouble() < errorRate) {
+            count(stage, "error");
+            return functionError("SimulatedError", "Injected " + stage + " failure");
+        }
+
+        ObjectNode result;
+        switch (stage) {
+            case "screening":
+                result = screen(body);
+                break;
+            case "detection":
+                result = detect(body);
+                break;
+            default:
+                result = suggest(body);
+        }
+
+        byte[] bytes = objectMapper.writeValueAsBytes(result);
+        if (bytes.length > maxResponseBytes) {
+            count(stage, "too_large");
+            return functionError("Function.ResponseSizeTooLarge",
+                    "Response payload size exceeded maximum allowed payload size (" + maxResponseBytes + " bytes).");
+        }
+        count(stage, "success");
+        return InvokeResponse.builder().statusCode(200).executedVersion("$LATEST")
+                .payload(SdkBytes.fromByteArrayUnsafe(bytes)).build();
+    }
+
+    /**
+     * Every file passes screening and is handed back with its content for detection
+     */
+    private ObjectNode screen(JsonNode body) {
+        ObjectNode result = objectMapper.createObjectNode();
+        result.put("status", "success");
+        ArrayNode files = result.putArray("files");
+        for (JsonNode file : body.path("files")) {
+            ObjectNode screened = file.deepCopy();
+            screened.put("screened", true);
+            screened.put("riskScore", Math.floorMod(seedOf(file), 100) / 100.0);
+            files.add(screened);
+        }
+        result.putObject("summary").put("totalFiles", files.size()).put("validFiles", files.size());
+        return result;
+    }
+
+    private ObjectNode detect(JsonNode body) {
+        ObjectNode result = objectMapper.createObjectNode();
+        result.put("status", "success");
+        ArrayNode issues = result.putArray("issues");
+        String analysisId = body.path("analysisId").asText("");
+        for (JsonNode file : body.path("files")) {
+            String path = file.hasNonNull("path") ? file.get("path").asText() : file.path("name").asText();
+            String[] lines = file.path("content").asText("").split("\n", -1);
+            int seed = seedOf(file);
+            int count = Math.floorMod(seed, maxIssuesPerFile + 1);
+            for (int k = 0; k < count; k++) {
+                String[] kind = ISSUE_CATALOG[Math.floorMod(seed + 31 * k, ISSUE_CATALOG.length)];
+                int line = Math.floorMod(seed * 17 + k * 101, Math.max(1, lines.length));
+                ObjectNode issue = issues.addObject();
+                issue.put("id", UUID.nameUUIDFromBytes((analysisId + ":" + path + ":" + k)
+                        .getBytes(StandardCharsets.UTF_8)).toString());
+                issue.put("type", kind[0]);
+                issue.put("category", kind[1]);
+                issue.put("severity", kind[2]);
+                issue.put("title", kind[0].replace('_', ' '));
+                issue.put("description", kind[3]);
+                issue.put("file", path);
+                issue.put("line", line + 1);
+                issue.put("codeSnippet", lines.length > 0 ? lines[line].trim() : "");
+                issue.put("language", file.path("language").asText("unknown"));
+                issue.put("confidence", 0.8);
+            }
+        }
+        result.putObject("summary").put("totalIssues", issues.size())
+                .put("filesAnalyzed", body.path("files").size());
+        return result;
+    }
+
+    private ObjectNode suggest(JsonNode body) {
+        ObjectNode result = objectMapper.createObjectNode();
+        result.put("status", "success");
+        result.put("analysisId", body.path("analysisId").asText(null));
+        ArrayNode suggestions = result.putArray("suggestions");
+        for (JsonNode issue : body.path("issues")) {
+            String type = issue.path("type").asText("UNKNOWN");
+            ObjectNode suggestion = suggestions.addObject();
+            suggestion.put("issueId", issue.path("id").asText(null));
+            suggestion.put("title", "Fix " + type.toLowerCase(Locale.ROOT).replace('_', ' '));
+            suggestion.put("description", "Simulated suggestion for " + type + " in " + issue.path("file").asText());
+            suggestion.put("fix", "1. Review the flagged code\n2. Apply the recommended pattern\n3. Add a test");
+            suggestion.put("model", issue.path("selectedModel").asText("amazon.nova-lite-v1:0"));
+            suggestion.put("confidence", 0.8);
+        }
+        result.putObject("summary").put("totalSuggestions", suggestions.size())
+                .put("tokensUsed", suggestions.size() * 450);
+        return result;
+    }
+
+    private InvokeResponse functionError(String errorType, String message) {
+        ObjectNode error = objectMapper.createObjectNode();
+        error.put("errorType", errorType);
+        error.put("errorMessage", message);
+        return InvokeResponse.builder().statusCode(200).functionError("Unhandled")
+                .payload(SdkBytes.fromUtf8String(error.toString())).build();
+    }
+
+    /**
+     * Log-normal latency with the stage's median and p99, plus a fixed cost per file or issue
+     */
+    private long latencyMs(String stage, int items) {
+        long median;
+        long p99;
+        switch (stage) {
+            case "screening":
+                median = screeningMedianMs;
+                p99 = screeningP99Ms;
+                break;
+            case "detection":
+                median = detectionMedianMs;
+                p99 = detectionP99Ms;
+                break;
+            default:
+                median = suggestionsMedianMs;
+                p99 = suggestionsP99Ms;
+        }
+        double sigma = median > 0 && p99 > median ? Math.log((double) p99 / median) / Z_99 : 0;
+        double latency = median * Math.exp(sigma * ThreadLocalRandom.current().nextGaussian());
+        return Math.max(0, Math.round(latency)) + perFileMs * items;
+    }
+
+    private String stageOf(String functionName) {
+        if (functionName == null) {
+            return "suggestions";
+        }
+        String name = functionName.toLowerCase(Locale.ROOT);
+        if (functionName.equals(screeningFunctionArn) || name.contains("screen")) {
+            return "screening";
+        }
+        if (functionName.equals(detectionFunctionArn) || name.contains("detect")) {
+            return "detection";
+        }
+        return "suggestions";
+    }
+
+    /**
+     * Stable per-file seed, so a file gets the same result on every scan
+     */
+    private static int seedOf(JsonNode file) {
+        String sha = file.path("sha").asText(null);
+        return (sha != null ? sha : file.path("path").asText(file.path("name").asText(""))).hashCode();
+    }
+
+    private void count(String stage, String result) {
+        Counter.builder("lambda.simulator.invocations")
+                .tag("stage", stage)
+                .tag("result", result)
+                .register(meterRegistry)
+                .increment();
+    }
+}
@@ -0,0 +1,56 @@
+package com.somdiproy.smartcodereview.service;
+
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityRequest;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageRequest;
+import software.amazon.awssdk.services.sqs.model.MessageSystemAttributeName;
+import software.amazon.awssdk.services.sqs.model.ReceiveMessageRequest;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Completion notifications read from an SQS queue with long polling
+ */
+public class SqsCompletionQueue implements CompletionQueue {
+
+    private final SqsClient sqsClient;
+    private final String queueUrl;
+
+    public SqsCompletionQueue(SqsClient sqsClient, String queueUrl) {
+        this.sqsClient = sqsClient;
+        this.queueUrl = queueUrl;
+    }
+
+    @Override
+    public List<Message> receive(int maxMessages, int waitSeconds) {
+        ReceiveMessageRequest request = ReceiveMessageRequest.builder()
+                .queueUrl(queueUrl)
+                .maxNumberOfMessages(Math.min(10, maxMessages))
+                .waitTimeSeconds(Math.min(20, waitSeconds))
+                .messageSystemAttributeNames(MessageSystemAttributeName.APPROXIMATE_RECEIVE_COUNT)
+                .build();
+
+        return sqsClient.receiveMessage(request).messages().stream()
+                .map(message -> new Message(message.body(), message.receiptHandle(), Integer.parseInt(
+                        message.attributes().getOrDefault(MessageSystemAttributeName.APPROXIMATE_RECEIVE_COUNT, "1"))))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public void delete(Message message) {
+        sqsClient.deleteMessage(DeleteMessageRequest.builder()
+                .queueUrl(queueUrl)
+                .receiptHandle(message.getReceiptHandle())
+                .build());
+    }
+
+    @Override
+    public void release(Message message) {
+        sqsClient.changeMessageVisibility(ChangeMessageVisibilityRequest.builder()
+                .queueUrl(queueUrl)
+                .receiptHandle(message.getReceiptHandle())
+                .visibilityTimeout(0)
+                .build());
+    }
+}
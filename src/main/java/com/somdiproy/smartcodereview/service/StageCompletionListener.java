@@ -0,0 +1,191 @@
+package com.somdiproy.smartcodereview.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.sqs.SqsClient;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Completes futures waiting on asynchronous Lambda stages from completion notifications.
+ * Functions publish {"analysisId", "stage", "status"} messages to the completion queue and a
+ * single listener thread hands each one to its waiter, instead of every analysis polling DynamoDB.
+ * Messages nobody here is waiting for are handed straight back to the queue for other
+ * instances, so they do not hold up their FIFO message group, until they have been delivered
+ * max-receives times.
+ */
+@Component
+public class StageCompletionListener {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(StageCompletionListener.class);
+
+    public static final String COMPLETED = "COMPLETED";
+    public static final String FAILED = "FAILED";
+
+    private static final int LONG_POLL_SECONDS = 20;
+    private static final long IDLE_WAIT_SECONDS = 30;
+    private static final long ERROR_BACKOFF_MS = 5000;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ConcurrentHashMap<String, CompletableFuture<String>> waiters = new ConcurrentHashMap<>();
+    private final Semaphore wakeUp = new Semaphore(0);
+
+    @Value("${aws.sqs.completion.enabled:false}")
+    private boolean enabled;
+
+    @Value("${aws.sqs.completion.queue:sqs}")
+    private String queueType;
+
+    @Value("${aws.sqs.queue-url:}")
+    private String queueUrl;
+
+    @Value("${aws.sqs.completion.max-receives:5}")
+    private int maxReceives;
+
+    @Autowired
+    private SqsClient sqsClient;
+
+    private CompletionQueue queue;
+    private Thread listenerThread;
+    private volatile boolean running;
+
+    @PostConstruct
+    void init() {
+        if (!enabled) {
+            return;
+        }
+        queue = "memory".equalsIgnoreCase(queueType) ? new InMemoryCompletionQueue()
+                : new SqsCompletionQueue(sqsClient, queueUrl);
+
+        running = true;
+        listenerThread = new Thread(this::listen, "stage-completion-listener");
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+        log.info("📬 Stage completion listener started on {} queue", queueType);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        running = false;
+        if (listenerThread != null) {
+            listenerThread.interrupt();
+        }
+        waiters.values().forEach(waiter -> waiter.cancel(false));
+    }
+
+    public boolean isEnabled() {
+        return queue != null;
+    }
+
+    /**
+     * The queue in use, e.g. to publish to the in-memory queue in tests
+     */
+    public CompletionQueue getQueue() {
+        return queue;
+    }
+
+    /**
+     * Register for a stage's completion; call before invoking the function so an early
+     * notification is not missed. Completes with COMPLETED or FAILED.
+     */
+    public CompletableFuture<String> await(String analysisId, String stage) {
+        CompletableFuture<String> waiter = new CompletableFuture<>();
+        String key = key(analysisId, stage);
+        waiters.put(key, waiter);
+        // Drop the registration however the wait ends, including timeouts and cancellation
+        waiter.whenComplete((status, error) -> waiters.remove(key, waiter));
+        wakeUp.release();
+        return waiter;
+    }
+
+    private void listen() {
+        while (running) {
+            try {
+                if (waiters.isEmpty()) {
+                    wakeUp.tryAcquire(IDLE_WAIT_SECONDS, TimeUnit.SECONDS);
+                    wakeUp.drainPermits();
+                    continue;
+                }
+                for (CompletionQueue.Message message : queue.receive(10, LONG_POLL_SECONDS)) {
+                    handle(message);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("❌ Failed to receive stage completion messages: {}", e.getMessage());
+                try {
+                    Thread.sleep(ERROR_BACKOFF_MS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void handle(CompletionQueue.Message message) {
+        JsonNode body;
+        try {
+            body = objectMapper.readTree(message.getBody());
+        } catch (Exception e) {
+            log.warn("⚠️ Discarding unreadable completion message: {}", e.getMessage());
+            queue.delete(message);
+            return;
+        }
+
+        String analysisId = body.path("analysisId").asText("");
+        String stage = body.path("stage").asText("");
+        CompletableFuture<String> waiter = waiters.get(key(analysisId, stage));
+
+        if (waiter == null) {
+            if (message.getReceiveCount() >= maxReceives) {
+                log.debug("Discarding unclaimed {} completion for analysis {}", stage, analysisId);
+                queue.delete(message);
+            } else {
+                queue.release(message);
+            }
+            return;
+        }
+
+        String status = toStatus(body.path("status").asText(""));
+        queue.delete(message);
+        if (status != null) {
+            log.info("📬 {} stage for analysis {} finished with {}", stage, analysisId, status);
+            waiter.complete(status);
+        } else {
+            log.debug("Ignoring progress message '{}' for analysis {}", body.path("status").asText(), analysisId);
+        }
+    }
+
+    /**
+     * Terminal status for a message, or null for progress updates
+     */
+    private String toStatus(String status) {
+        switch (status.toLowerCase(Locale.ROOT)) {
+            case "completed":
+            case "success":
+            case "suggestions_complete":
+                return COMPLETED;
+            case "failed":
+            case "error":
+                return FAILED;
+            default:
+                return null;
+        }
+    }
+
+    private String key(String analysisId, String stage) {
+        return analysisId + ":" + stage.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,330 @@
+package com.somdiproy.smartcodereview.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.somdiproy.smartcodereview.model.Issue;
+import com.somdiproy.smartcodereview.repository.IssueDetailsRepository;
+import com.somdiproy.smartcodereview.util.DiskLruCache;
+import com.somdiproy.smartcodereview.util.IssueFingerprint;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collapses issues that would get the same suggestion into a single Lambda call.
+ * Issues are grouped by IssueFingerprint; only one representative per group that is not
+ * already in the persistent cache is sent to the suggestions function, and its suggestion
+ * is fanned back out to every issue in the group and stored for later analyses.
+ * Cached suggestions are scoped to the repository they were generated for, and the fields
+ * that quote that repository's files and code are dropped before they are stored.
+ */
+@Component
+public class SuggestionDeduplicator {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(SuggestionDeduplicator.class);
+
+    private static final String FINGERPRINT = "fingerprint";
+
+    /**
+     * Top-level suggestion fields that quote the issue's file or code
+     */
+    private static final List<String> FILE_FIELDS = List.of(
+            "file", "filePath", "line", "lineNumber", "code", "codeSnippet", "originalCode");
+
+    /**
+     * immediateFix fields holding the exact code to search for and its replacement
+     */
+    private static final List<String> FIX_CODE_FIELDS = List.of("searchCode", "replaceCode");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Value("${aws.lambda.suggestions.dedup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${aws.lambda.suggestions.cache.enabled:true}")
+    private boolean cacheEnabled;
+
+    @Value("${aws.lambda.suggestions.cache.directory:${java.io.tmpdir}/smartcode/suggestion-cache}")
+    private String directory;
+
+    @Value("${aws.lambda.suggestions.cache.max-size-bytes:67108864}") // 64MB default
+    private long maxSizeBytes;
+
+    @Value("${aws.lambda.suggestions.cache.ttl-hours:168}")
+    private long ttlHours;
+
+    @Value("${aws.lambda.suggestions.prompt-version:1}")
+    private String promptVersion;
+
+    private final IssueDetailsRepository issueDetailsRepository;
+    private final MeterRegistry meterRegistry;
+    private DiskLruCache cache;
+    private Counter collapsedIssues;
+
+    public SuggestionDeduplicator(IssueDetailsRepository issueDetailsRepository, MeterRegistry meterRegistry) {
+        this.issueDetailsRepository = issueDetailsRepository;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    void init() {
+        collapsedIssues = Counter.builder("lambda.suggestions.dedup.collapsed")
+                .description("Issues that shared a suggestion with another issue in the same analysis")
+                .register(meterRegistry);
+        if (!enabled || !cacheEnabled) {
+            log.info("🧬 Suggestion de-duplication {}, cache disabled", enabled ? "enabled" : "disabled");
+            return;
+        }
+
+        cache = new DiskLruCache(Paths.get(directory), maxSizeBytes);
+
+        FunctionCounter.builder("lambda.suggestions.cache.requests", cache, DiskLruCache::getHitCount)
+                .tag("result", "hit")
+                .description("Suggestions served from cache without calling Nova")
+                .register(meterRegistry);
+        FunctionCounter.builder("lambda.suggestions.cache.requests", cache, DiskLruCache::getMissCount)
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("lambda.suggestions.cache.entries", cache, DiskLruCache::getEntryCount)
+                .register(meterRegistry);
+
+        log.info("🧬 Suggestion de-duplication enabled, cache at {} (max {} bytes, ttl {}h, prompt v{})",
+                 directory, maxSizeBytes, ttlHours, promptVersion);
+    }
+
+    /**
+     * Split issues into cached suggestions, representatives to send, and their duplicates
+     */
+    public Plan plan(String repository, List<Map<String, Object>> issues) {
+        Plan plan = new Plan(scopeOf(repository));
+        if (!enabled) {
+            plan.representatives.addAll(issues);
+            return plan;
+        }
+
+        Map<String, Map<String, Object>> representativeByFingerprint = new LinkedHashMap<>();
+        for (Map<String, Object> issue : issues) {
+            String fingerprint = idOf(issue) != null ? IssueFingerprint.of(issue) : null;
+            if (fingerprint == null) {
+                plan.representatives.add(issue);
+                continue;
+            }
+            issue.put(FINGERPRINT, fingerprint);
+
+            Optional<Map<String, Object>> cached = get(plan.scope, fingerprint, issue);
+            if (cached.isPresent()) {
+                plan.suggestions.add(forIssue(cached.get(), issue));
+                continue;
+            }
+
+            Map<String, Object> representative = representativeByFingerprint.get(fingerprint);
+            if (representative == null) {
+                representativeByFingerprint.put(fingerprint, issue);
+                plan.representatives.add(issue);
+            } else {
+                plan.duplicates.computeIfAbsent(idOf(representative), k -> new ArrayList<>()).add(issue);
+                collapsedIssues.increment();
+            }
+        }
+
+        log.info("🧬 Suggestions: {} issues -> {} cached, {} to generate, {} collapsed into them",
+                 issues.size(), plan.suggestions.size(), plan.representatives.size(),
+                 plan.duplicates.values().stream().mapToInt(List::size).sum());
+        return plan;
+    }
+
+    /**
+     * Collect the representatives' suggestions, from the response or from the issue-details
+     * table the function writes to, and copy them to their duplicates. Returns one suggestion
+     * per issue, cached ones included. Only generated suggestions are cached, not local fallbacks.
+     */
+    public List<Map<String, Object>> fanOut(String analysisId, Plan plan,
+                                            List<Map<String, Object>> responseSuggestions, boolean generated) {
+        List<Map<String, Object>> suggestions = new ArrayList<>(plan.suggestions);
+        Map<String, Map<String, Object>> byIssueId = new HashMap<>();
+        if (responseSuggestions != null) {
+            suggestions.addAll(responseSuggestions);
+            for (Map<String, Object> suggestion : responseSuggestions) {
+                Object issueId = suggestion.get("issueId");
+                if (issueId != null) {
+                    byIssueId.put(issueId.toString(), suggestion);
+                }
+            }
+        }
+
+        for (Map<String, Object> representative : plan.representatives) {
+            String issueId = idOf(representative);
+            Map<String, Object> suggestion = byIssueId.get(issueId);
+            boolean fromTable = false;
+            if (suggestion == null) {
+                suggestion = storedSuggestion(analysisId, issueId);
+                if (suggestion == null) {
+                    continue;
+                }
+                suggestions.add(suggestion);
+                fromTable = true;
+            }
+
+            // Suggestions in the table were always written by the function itself
+            String fingerprint = (String) representative.get(FINGERPRINT);
+            if (fingerprint != null && (generated || fromTable)) {
+                put(plan.scope, fingerprint, representative, suggestion);
+            }
+            for (Map<String, Object> duplicate : plan.duplicates.getOrDefault(issueId, List.of())) {
+                suggestions.add(forIssue(suggestion, duplicate));
+            }
+        }
+        return suggestions;
+    }
+
+    private Map<String, Object> storedSuggestion(String analysisId, String issueId) {
+        if (issueId == null) {
+            return null;
+        }
+        try {
+            Optional<Issue> stored = issueDetailsRepository.findByAnalysisIdAndIssueId(analysisId, issueId);
+            if (stored.isPresent() && stored.get().getSuggestion() != null) {
+                Map<String, Object> suggestion = objectMapper.convertValue(stored.get().getSuggestion(), Map.class);
+                suggestion.put("issueId", issueId);
+                return suggestion;
+            }
+        } catch (Exception e) {
+            log.warn("⚠️ Could not read suggestion for issue {} of analysis {}: {}", issueId, analysisId,
+                     e.getMessage());
+        }
+        return null;
+    }
+
+    private Optional<Map<String, Object>> get(String scope, String fingerprint, Map<String, Object> issue) {
+        if (cache == null || scope == null) {
+            return Optional.empty();
+        }
+        String key = key(scope, fingerprint, issue);
+        Optional<byte[]> bytes = cache.get(key);
+        if (bytes.isEmpty()) {
+            return Optional.empty();
+        }
+        try {
+            CachedSuggestion entry = objectMapper.readValue(bytes.get(), CachedSuggestion.class);
+            if (System.currentTimeMillis() - entry.storedAt <= TimeUnit.HOURS.toMillis(ttlHours)) {
+                return Optional.of(entry.suggestion);
+            }
+        } catch (IOException e) {
+            log.warn("⚠️ Dropping unreadable suggestion cache entry: {}", e.getMessage());
+        }
+        cache.remove(key);
+        return Optional.empty();
+    }
+
+    private void put(String scope, String fingerprint, Map<String, Object> issue, Map<String, Object> suggestion) {
+        if (cache == null || scope == null) {
+            return;
+        }
+        Map<String, Object> stored = withoutFileContent(suggestion);
+        try {
+            cache.put(key(scope, fingerprint, issue),
+                      objectMapper.writeValueAsBytes(new CachedSuggestion(System.currentTimeMillis(), stored)));
+        } catch (IOException e) {
+            log.warn("⚠️ Failed to cache suggestion for issue {}: {}", idOf(issue), e.getMessage());
+        }
+    }
+
+    /**
+     * Suggestions depend on the repository and the model chosen for the issue as well as on its content
+     */
+    private String key(String scope, String fingerprint, Map<String, Object> issue) {
+        return scope + ":" + fingerprint + ":" + issue.getOrDefault("selectedModel", "default") + ":" + promptVersion;
+    }
+
+    /**
+     * Cache scope for a repository URL or owner/name; null disables caching for the analysis
+     */
+    private static String scopeOf(String repository) {
+        if (repository == null || repository.isBlank()) {
+            return null;
+        }
+        String scope = repository.trim().toLowerCase(Locale.ROOT);
+        while (scope.endsWith("/")) {
+            scope = scope.substring(0, scope.length() - 1);
+        }
+        if (scope.endsWith(".git")) {
+            scope = scope.substring(0, scope.length() - 4);
+        }
+        return scope;
+    }
+
+    /**
+     * Copy of a suggestion without its issue id and the fields that quote the issue's file or code
+     */
+    private static Map<String, Object> withoutFileContent(Map<String, Object> suggestion) {
+        Map<String, Object> stored = new HashMap<>(suggestion);
+        stored.remove("issueId");
+        FILE_FIELDS.forEach(stored::remove);
+        if (stored.get("immediateFix") instanceof Map<?, ?> fix) {
+            Map<Object, Object> generic = new HashMap<>(fix);
+            FIX_CODE_FIELDS.forEach(generic::remove);
+            stored.put("immediateFix", generic);
+        }
+        return stored;
+    }
+
+    private Map<String, Object> forIssue(Map<String, Object> suggestion, Map<String, Object> issue) {
+        Map<String, Object> copy = new HashMap<>(suggestion);
+        copy.put("issueId", idOf(issue));
+        return copy;
+    }
+
+    private static String idOf(Map<String, Object> issue) {
+        Object id = issue.get("id");
+        return id != null ? id.toString() : null;
+    }
+
+    /**
+     * What to send to the suggestions function and what to fill in afterwards
+     */
+    public static class Plan {
+        private final List<Map<String, Object>> representatives = new ArrayList<>();
+        private final Map<String, List<Map<String, Object>>> duplicates = new HashMap<>();
+        private final List<Map<String, Object>> suggestions = new ArrayList<>();
+        private final String scope;
+
+        private Plan(String scope) {
+            this.scope = scope;
+        }
+
+        public List<Map<String, Object>> getRepresentatives() { return representatives; }
+        public Map<String, List<Map<String, Object>>> getDuplicates() { return duplicates; }
+        public List<Map<String, Object>> getCachedSuggestions() { return suggestions; }
+
+        public boolean isDeduplicated() {
+            return !duplicates.isEmpty() || !suggestions.isEmpty();
+        }
+    }
+
+    private static class CachedSuggestion {
+        public long storedAt;
+        public Map<String, Object> suggestion;
+
+        public CachedSuggestion() {
+        }
+
+        private CachedSuggestion(long storedAt, Map<String, Object> suggestion) {
+            this.storedAt = storedAt;
+            this.suggestion = suggestion;
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package com.somdiproy.smartcodereview.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Size-capped on-disk key/value store with least-recently-used eviction.
+ * Values live in files sharded by the first two characters of the key; the
+ * LRU order is kept in memory and rebuilt from file modification times on start.
+ */
+public class DiskLruCache {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(DiskLruCache.class);
+
+    private static final Pattern SAFE_KEY = Pattern.compile("[a-f0-9]{8,64}");
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final Path directory;
+    private final long maxSizeBytes;
+
+    // key -> stored size, iteration order is least recently used first
+    private final LinkedHashMap<String, Long> index = new LinkedHashMap<>(256, 0.75f, true);
+    private long currentSizeBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public DiskLruCache(Path directory, long maxSizeBytes) {
+        this.directory = directory;
+        this.maxSizeBytes = maxSizeBytes;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create cache directory " + directory, e);
+        }
+        loadIndex();
+    }
+
+    /**
+     * Read a value, promoting it to most recently used
+     */
+    public Optional<byte[]> get(String key) {
+        String safeKey = toSafeKey(key);
+        synchronized (this) {
+            if (index.get(safeKey) == null) {
+                misses.incrementAndGet();
+                return Optional.empty();
+            }
+        }
+
+        Path file = pathFor(safeKey);
+        try {
+            byte[] value = Files.readAllBytes(file);
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            hits.incrementAndGet();
+            return Optional.of(value);
+        } catch (NoSuchFileException e) {
+            forget(safeKey);
+        } catch (IOException e) {
+            log.warn("⚠️ Failed to read cache entry {}: {}", safeKey, e.getMessage());
+        }
+        misses.incrementAndGet();
+        return Optional.empty();
+    }
+
+    /**
+     * Open a value for streaming, promoting it to most recently used. The caller closes the stream.
+     */
+    public Optional<InputStream> openStream(String key) {
+        String safeKey = toSafeKey(key);
+        synchronized (this) {
+            if (index.get(safeKey) == null) {
+                misses.incrementAndGet();
+                return Optional.empty();
+            }
+        }
+
+        Path file = pathFor(safeKey);
+        try {
+            InputStream in = Files.newInputStream(file);
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            hits.incrementAndGet();
+            return Optional.of(in);
+        } catch (NoSuchFileException e) {
+            forget(safeKey);
+        } catch (IOException e) {
+            log.warn("⚠️ Failed to open cache entry {}: {}", safeKey, e.getMessage());
+        }
+        misses.incrementAndGet();
+        return Optional.empty();
+    }
+
+    /**
+     * Check for a key without touching its recency or the hit/miss counters
+     */
+    public synchronized boolean contains(String key) {
+        return index.containsKey(toSafeKey(key));
+    }
+
+    /**
+     * Store a value, evicting least recently used entries to stay under the size cap
+     */
+    public void put(String key, byte[] value) {
+        put(key, new ByteArrayInputStream(value), value.length);
+    }
+
+    /**
+     * Store length bytes read from a stream, without holding them in memory
+     */
+    public void put(String key, InputStream value, long length) {
+        if (length > maxSizeBytes) {
+            return;
+        }
+
+        String safeKey = toSafeKey(key);
+        Path file = pathFor(safeKey);
+        try {
+            Files.createDirectories(file.getParent());
+            Path temp = Files.createTempFile(file.getParent(), safeKey, TEMP_SUFFIX);
+            try {
+                Files.copy(value, temp, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                Files.deleteIfExists(temp);
+                throw e;
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            log.warn("⚠️ Failed to write cache entry {}: {}", safeKey, e.getMessage());
+            return;
+        }
+
+        List<String> evicted;
+        synchronized (this) {
+            Long previous = index.put(safeKey, length);
+            currentSizeBytes += length - (previous != null ? previous : 0L);
+            evicted = evictToFit();
+        }
+        evicted.forEach(this::deleteQuietly);
+    }
+
+    /**
+     * Remove a single entry
+     */
+    public void remove(String key) {
+        String safeKey = toSafeKey(key);
+        forget(safeKey);
+        deleteQuietly(safeKey);
+    }
+
+    public long getHitCount() { return hits.get(); }
+    public long getMissCount() { return misses.get(); }
+    public long getEvictionCount() { return evictions.get(); }
+    public synchronized long getSizeBytes() { return currentSizeBytes; }
+    public synchronized int getEntryCount() { return index.size(); }
+
+    private synchronized void forget(String safeKey) {
+        Long size = index.remove(safeKey);
+        if (size != null) {
+            currentSizeBytes -= size;
+        }
+    }
+
+    private List<String> evictToFit() {
+        List<String> evicted = new ArrayList<>();
+        Iterator<Map.Entry<String, Long>> it = index.entrySet().iterator();
+        while (currentSizeBytes > maxSizeBytes && it.hasNext()) {
+            Map.Entry<String, Long> eldest = it.next();
+            currentSizeBytes -= eldest.getValue();
+            evicted.add(eldest.getKey());
+            it.remove();
+            evictions.incrementAndGet();
+        }
+        return evicted;
+    }
+
+    private void deleteQuietly(String safeKey) {
+        try {
+            Files.deleteIfExists(pathFor(safeKey));
+        } catch (IOException e) {
+            log.debug("Failed to delete cache entry {}: {}", safeKey, e.getMessage());
+        }
+    }
+
+    private void loadIndex() {
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(directory, 2)) {
+            files = walk.filter(Files::isRegularFile).toList();
+        } catch (IOException e) {
+            log.warn("⚠️ Failed to scan cache directory {}: {}", directory, e.getMessage());
+            return;
+        }
+
+        List<Path> entries = new ArrayList<>();
+        for (Path file : files) {
+            if (file.getFileName().toString().endsWith(TEMP_SUFFIX)) {
+                deleteTemp(file);
+            } else {
+                entries.add(file);
+            }
+        }
+        entries.sort(Comparator.comparing(this::lastModified));
+
+        synchronized (this) {
+            for (Path file : entries) {
+                try {
+                    long size = Files.size(file);
+                    index.put(file.getFileName().toString(), size);
+                    currentSizeBytes += size;
+                } catch (IOException e) {
+                    log.debug("Skipping unreadable cache entry {}", file);
+                }
+            }
+            evictToFit().forEach(this::deleteQuietly);
+        }
+        log.info("💾 Loaded {} cache entries ({} bytes) from {}", index.size(), currentSizeBytes, directory);
+    }
+
+    private FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private void deleteTemp(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.debug("Failed to delete stale temp file {}", file);
+        }
+    }
+
+    private Path pathFor(String safeKey) {
+        return directory.resolve(safeKey.substring(0, 2)).resolve(safeKey);
+    }
+
+    /**
+     * Hex digests are used as-is; anything else is hashed to a filesystem-safe name
+     */
+    private static String toSafeKey(String key) {
+        String lower = key.toLowerCase();
+        if (SAFE_KEY.matcher(lower).matches()) {
+            return lower;
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(key.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
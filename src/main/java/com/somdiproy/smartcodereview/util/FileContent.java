@@ -0,0 +1,183 @@
+package com.somdiproy.smartcodereview.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * UTF-8 file content held either as a heap byte array or, for large files, as a temp file
+ * that is read through a stream on every use. Consumers stream the bytes instead of
+ * materializing a String, and release() frees the backing file when the analysis ends.
+ * Spill files are never memory-mapped, so nothing keeps their pages or disk space alive
+ * after release(). Serializes to JSON as a plain string.
+ */
+@JsonSerialize(using = FileContent.Serializer.class)
+public class FileContent {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(FileContent.class);
+
+    private final byte[] bytes;
+    private final Path spillFile;
+    private final int length;
+    private volatile boolean released;
+    private volatile long jsonLength = -1;
+
+    private FileContent(byte[] bytes, Path spillFile, int length) {
+        this.bytes = bytes;
+        this.spillFile = spillFile;
+        this.length = length;
+    }
+
+    /**
+     * Keep the bytes on the heap
+     */
+    public static FileContent inMemory(byte[] utf8) {
+        return new FileContent(utf8, null, utf8.length);
+    }
+
+    public static FileContent of(String text) {
+        return inMemory(text != null ? text.getBytes(StandardCharsets.UTF_8) : new byte[0]);
+    }
+
+    /**
+     * Wrap an already written spill file; the content owns the file and deletes it on release()
+     */
+    public static FileContent spilled(Path file) throws IOException {
+        try {
+            long size = Files.size(file);
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("File content too large: " + size + " bytes");
+            }
+            return new FileContent(null, file, (int) size);
+        } catch (IOException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+    }
+
+    /**
+     * Size in bytes
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Length of the content as a quoted, escaped JSON string, computed once without decoding
+     */
+    public long jsonLength() {
+        long cached = jsonLength;
+        if (cached >= 0) {
+            return cached;
+        }
+        checkNotReleased();
+        long total = 2;
+        if (bytes != null) {
+            for (byte b : bytes) {
+                total += JsonPayloadWriter.utf8ByteLength(b);
+            }
+        } else {
+            byte[] buffer = new byte[8192];
+            try (InputStream in = openStream()) {
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    for (int i = 0; i < read; i++) {
+                        total += JsonPayloadWriter.utf8ByteLength(buffer[i]);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        jsonLength = total;
+        return total;
+    }
+
+    public boolean isSpilled() {
+        return spillFile != null;
+    }
+
+    /**
+     * A new stream over the content; the caller closes it
+     */
+    public InputStream openStream() {
+        checkNotReleased();
+        if (bytes != null) {
+            return new ByteArrayInputStream(bytes);
+        }
+        try {
+            return new BufferedInputStream(Files.newInputStream(spillFile));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public Reader openReader() {
+        return new InputStreamReader(openStream(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Decode the whole content; prefer openStream() or openReader() for large files
+     */
+    public String asString() {
+        checkNotReleased();
+        if (bytes != null) {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+        try {
+            return Files.readString(spillFile, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Delete the spill file. Opening or decoding spilled content afterwards throws
+     * IllegalStateException; streams opened before keep reading until closed where the OS
+     * allows it, and the disk space is freed once the last of them is closed. In-memory
+     * content stays readable and is freed with the object.
+     */
+    public void release() {
+        if (released) {
+            return;
+        }
+        released = true;
+        if (spillFile != null) {
+            try {
+                Files.deleteIfExists(spillFile);
+            } catch (IOException e) {
+                log.warn("⚠️ Failed to delete spill file {}: {}", spillFile, e.getMessage());
+            }
+        }
+    }
+
+    private void checkNotReleased() {
+        if (released && spillFile != null) {
+            throw new IllegalStateException("File content was already released");
+        }
+    }
+
+    /**
+     * Streams the content into the JSON output without building an intermediate String
+     */
+    public static class Serializer extends JsonSerializer<FileContent> {
+        @Override
+        public void serialize(FileContent value, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+            try (Reader reader = value.openReader()) {
+                gen.writeString(reader, -1);
+            }
+        }
+    }
+}
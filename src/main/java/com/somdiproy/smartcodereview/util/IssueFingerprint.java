@@ -0,0 +1,154 @@
+package com.somdiproy.smartcodereview.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Fingerprint of a detected issue for suggestion de-duplication.
+ * The snippet is normalized so that the same mistake written with different names and values
+ * hashes the same: comments and whitespace are dropped, string and numeric literals become
+ * placeholders, and local identifiers become a single placeholder. Keywords and names after
+ * a '.' (API calls such as executeQuery or innerHTML) are kept, since they carry the meaning.
+ * Example: stmt.executeQuery("SELECT * FROM t WHERE id=" + userId) -> I.executeQuery(S+I)
+ * Issues about literal values themselves (hardcoded credentials, secrets, tokens) are not
+ * normalized, since every password = "..." would otherwise collapse into one fingerprint.
+ */
+public class IssueFingerprint {
+
+    private static final Set<String> KEYWORDS = Set.of(
+            "abstract", "assert", "async", "await", "boolean", "break", "byte", "case", "catch", "char", "class",
+            "const", "continue", "def", "default", "del", "do", "double", "elif", "else", "enum", "except",
+            "extends", "false", "final", "finally", "float", "for", "from", "function", "if", "implements",
+            "import", "in", "instanceof", "int", "interface", "is", "lambda", "let", "long", "new", "none",
+            "not", "null", "or", "and", "pass", "private", "protected", "public", "raise", "return", "self",
+            "short", "static", "super", "switch", "synchronized", "this", "throw", "throws", "true", "try",
+            "typeof", "var", "void", "while", "with", "yield");
+
+    private static final List<String> LITERAL_SENSITIVE_MARKERS = List.of(
+            "CREDENTIAL", "SECRET", "PASSWORD", "TOKEN", "API_KEY", "HARDCODED");
+
+    /**
+     * Fingerprint from the issue's type, language and code snippet, or null when it has no snippet
+     */
+    public static String of(Map<String, Object> issue) {
+        String snippet = firstNonBlank(issue.get("codeSnippet"), issue.get("code"));
+        if (snippet == null) {
+            return null;
+        }
+        String type = String.valueOf(issue.getOrDefault("type", "unknown")).toUpperCase(Locale.ROOT);
+        String language = firstNonBlank(issue.get("language"), extensionOf(issue.get("file")));
+        String body = isLiteralSensitive(type) ? snippet.strip().replaceAll("\\s+", " ") : normalize(snippet);
+        return sha256(type + "|" + (language != null ? language.toLowerCase(Locale.ROOT) : "") + "|" + body);
+    }
+
+    /**
+     * Whether the issue type is about a literal value, so literals must stay in the fingerprint
+     */
+    public static boolean isLiteralSensitive(String type) {
+        String upper = type.toUpperCase(Locale.ROOT);
+        return LITERAL_SENSITIVE_MARKERS.stream().anyMatch(upper::contains);
+    }
+
+    /**
+     * Structural form of a snippet with names, literals, comments and whitespace abstracted away
+     */
+    public static String normalize(String code) {
+        StringBuilder out = new StringBuilder(code.length());
+        int i = 0;
+        int n = code.length();
+        while (i < n) {
+            char c = code.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '/' && i + 1 < n && code.charAt(i + 1) == '/') {
+                i = skipLine(code, i);
+            } else if (c == '#') {
+                i = skipLine(code, i);
+            } else if (c == '/' && i + 1 < n && code.charAt(i + 1) == '*') {
+                int end = code.indexOf("*/", i + 2);
+                i = end < 0 ? n : end + 2;
+            } else if (c == '"' || c == '\'' || c == '`') {
+                i = skipString(code, i, c);
+                out.append('S');
+            } else if (Character.isDigit(c)) {
+                while (i < n && (Character.isLetterOrDigit(code.charAt(i)) || code.charAt(i) == '.'
+                        || code.charAt(i) == '_')) {
+                    i++;
+                }
+                out.append('N');
+            } else if (Character.isJavaIdentifierStart(c)) {
+                int start = i;
+                while (i < n && Character.isJavaIdentifierPart(code.charAt(i))) {
+                    i++;
+                }
+                String word = code.substring(start, i);
+                boolean member = out.length() > 0 && out.charAt(out.length() - 1) == '.';
+                if (member || KEYWORDS.contains(word.toLowerCase(Locale.ROOT))) {
+                    out.append(word);
+                } else {
+                    out.append('I');
+                }
+                // Keep adjacent words apart so "new I" and "newI" differ
+                out.append(' ');
+            } else {
+                if (out.length() > 0 && out.charAt(out.length() - 1) == ' ') {
+                    out.setLength(out.length() - 1);
+                }
+                out.append(c);
+                i++;
+            }
+        }
+        return out.toString().trim();
+    }
+
+    private static int skipLine(String code, int i) {
+        int end = code.indexOf('\n', i);
+        return end < 0 ? code.length() : end + 1;
+    }
+
+    private static int skipString(String code, int i, char quote) {
+        i++;
+        while (i < code.length()) {
+            char c = code.charAt(i);
+            if (c == '\\') {
+                i += 2;
+            } else if (c == quote) {
+                return i + 1;
+            } else {
+                i++;
+            }
+        }
+        return i;
+    }
+
+    private static String extensionOf(Object file) {
+        if (file == null) {
+            return null;
+        }
+        String path = file.toString();
+        int dot = path.lastIndexOf('.');
+        return dot >= 0 && dot < path.length() - 1 ? path.substring(dot + 1) : null;
+    }
+
+    private static String firstNonBlank(Object first, Object second) {
+        if (first != null && !first.toString().isBlank()) {
+            return first.toString();
+        }
+        return second != null && !second.toString().isBlank() ? second.toString() : null;
+    }
+
+    private static String sha256(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
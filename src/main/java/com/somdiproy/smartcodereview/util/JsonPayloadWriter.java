@@ -0,0 +1,226 @@
+package com.somdiproy.smartcodereview.util;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.lang.reflect.RecordComponent;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Sizes and writes JSON request payloads without intermediate copies.
+ * sizeOf() walks the payload and adds up the encoded length of every value, which is exact for
+ * maps, lists, records, strings, numbers and FileContent, so batching decisions need no trial serialization.
+ * write() then streams the payload through a Jackson generator into a buffer allocated at that size.
+ */
+public class JsonPayloadWriter {
+
+    private static final int SURROGATE_PAIR_LENGTH = 12;
+
+    /**
+     * UTF-8 length of the value as Jackson would write it
+     */
+    public static long sizeOf(ObjectMapper objectMapper, Object value) {
+        if (value == null) {
+            return 4;
+        }
+        if (value instanceof CharSequence) {
+            return stringLength((CharSequence) value);
+        }
+        if (value instanceof FileContent) {
+            return ((FileContent) value).jsonLength();
+        }
+        if (value instanceof Boolean) {
+            return (Boolean) value ? 4 : 5;
+        }
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            return Long.toString(((Number) value).longValue()).length();
+        }
+        if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            long size = 2 + Math.max(0, map.size() - 1);
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                size += stringLength(String.valueOf(entry.getKey())) + 1 + sizeOf(objectMapper, entry.getValue());
+            }
+            return size;
+        }
+        if (value instanceof Record) {
+            return recordSize(objectMapper, (Record) value);
+        }
+        if (value instanceof Collection) {
+            Collection<?> items = (Collection<?>) value;
+            long size = 2 + Math.max(0, items.size() - 1);
+            for (Object item : items) {
+                size += sizeOf(objectMapper, item);
+            }
+            return size;
+        }
+        // Anything else (doubles, dates, beans) is rare and small enough to measure directly
+        try {
+            CountingSink sink = new CountingSink();
+            objectMapper.writeValue(sink, value);
+            return sink.count;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static long recordSize(ObjectMapper objectMapper, Record record) {
+        RecordShape shape = RECORD_SHAPES.get(record.getClass());
+        long size = 2;
+        int written = 0;
+        for (int i = 0; i < shape.accessors.length; i++) {
+            Object component;
+            try {
+                component = shape.accessors[i].invoke(record);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Cannot read record component " + shape.names[i], e);
+            }
+            if (component == null && shape.omitNulls) {
+                continue;
+            }
+            size += (written++ > 0 ? 1 : 0) + stringLength(shape.names[i]) + 1 + sizeOf(objectMapper, component);
+        }
+        return size;
+    }
+
+    /**
+     * Serialize in one pass into a buffer of the expected size, growing only if the estimate was short
+     */
+    public static byte[] write(ObjectMapper objectMapper, Object value, long expectedSize) throws IOException {
+        PresizedOutputStream out = new PresizedOutputStream((int) Math.min(Math.max(expectedSize, 16), Integer.MAX_VALUE - 8));
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            objectMapper.writeValue(generator, value);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Quoted, escaped UTF-8 length of a string
+     */
+    public static long stringLength(CharSequence text) {
+        long length = 2;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                length += asciiLength(c);
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < text.length() && Character.isLowSurrogate(text.charAt(i + 1))) {
+                // Jackson writes supplementary characters as an escaped surrogate pair
+                length += SURROGATE_PAIR_LENGTH;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Encoded length contributed by one byte of UTF-8 text inside a JSON string
+     */
+    static int utf8ByteLength(byte b) {
+        if (b >= 0) {
+            return asciiLength(b);
+        }
+        // A 4-byte sequence becomes a 12-byte escaped surrogate pair; its 3 continuation bytes count 1 each
+        return (b & 0xF8) == 0xF0 ? SURROGATE_PAIR_LENGTH - 3 : 1;
+    }
+
+    /**
+     * Encoded length of one ASCII character inside a JSON string
+     */
+    static int asciiLength(int c) {
+        if (c == '"' || c == '\\') {
+            return 2;
+        }
+        if (c < 0x20) {
+            // Jackson uses two-character escapes for these and six-character ones for other control characters
+            return c == '\b' || c == '\t' || c == '\n' || c == '\f' || c == '\r' ? 2 : 6;
+        }
+        return 1;
+    }
+
+    private static final ClassValue<RecordShape> RECORD_SHAPES = new ClassValue<>() {
+        @Override
+        protected RecordShape computeValue(Class<?> type) {
+            return new RecordShape(type);
+        }
+    };
+
+    /**
+     * Component names and accessors of a record type, in serialization order
+     */
+    private static class RecordShape {
+        private final String[] names;
+        private final Method[] accessors;
+        private final boolean omitNulls;
+
+        private RecordShape(Class<?> type) {
+            RecordComponent[] components = type.getRecordComponents();
+            names = new String[components.length];
+            accessors = new Method[components.length];
+            for (int i = 0; i < components.length; i++) {
+                names[i] = components[i].getName();
+                accessors[i] = components[i].getAccessor();
+            }
+            JsonInclude include = type.getAnnotation(JsonInclude.class);
+            omitNulls = include != null && include.value() == JsonInclude.Include.NON_NULL;
+        }
+    }
+
+    private static class CountingSink extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+
+    /**
+     * ByteArrayOutputStream that hands back its own array when it was sized exactly
+     */
+    private static class PresizedOutputStream extends OutputStream {
+        private byte[] buffer;
+        private int count;
+
+        private PresizedOutputStream(int size) {
+            this.buffer = new byte[size];
+        }
+
+        @Override
+        public void write(int b) {
+            ensureCapacity(count + 1);
+            buffer[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            ensureCapacity(count + len);
+            System.arraycopy(b, off, buffer, count, len);
+            count += len;
+        }
+
+        private void ensureCapacity(int needed) {
+            if (needed > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(needed, buffer.length + (buffer.length >> 1)));
+            }
+        }
+
+        private byte[] toByteArray() {
+            return count == buffer.length ? buffer : Arrays.copyOf(buffer, count);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.somdiproy.smartcodereview.util;
+
+import java.util.Locale;
+
+/**
+ * Operation names used for Lambda calls, e.g. "screening" or "detection_batch"
+ */
+public class LambdaStages {
+
+    /**
+     * Stage an operation belongs to; batch variants such as "detection_batch" map to their
+     * base stage so they share its rate limit, concurrency window, breaker and deadline
+     */
+    public static String stageOf(String operation) {
+        String stage = operation.toLowerCase(Locale.ROOT);
+        int suffix = stage.indexOf('_');
+        return suffix > 0 ? stage.substring(0, suffix) : stage;
+    }
+}
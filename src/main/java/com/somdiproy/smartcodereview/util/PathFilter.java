@@ -0,0 +1,249 @@
+package com.somdiproy.smartcodereview.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Precompiled gitignore-style path filter.
+ * Patterns are compiled once: plain directory or file names such as "node_modules/"
+ * become lookups on path segments, anything with wildcards becomes a precompiled regex.
+ * Later patterns override earlier ones and a leading "!" re-includes a path, as in .gitignore.
+ * As in git, a file below an excluded directory cannot be re-included: the first excluded
+ * parent directory decides, whatever rules follow for the file itself.
+ */
+public class PathFilter {
+
+    private static final Pattern LITERAL_NAME = Pattern.compile("[^/*?\\[\\]\\\\]+");
+
+    private final List<Rule> rules;
+    private final Set<String> extensions;
+
+    // Fast path when every rule is a plain excluded name
+    private final boolean segmentsOnly;
+    private final Set<String> excludedDirNames = new HashSet<>();
+    private final Set<String> excludedNames = new HashSet<>();
+
+    private PathFilter(List<Rule> rules, Set<String> extensions) {
+        this.rules = rules;
+        this.extensions = extensions;
+        this.segmentsOnly = rules.stream().allMatch(rule -> rule.literalName != null && !rule.negated);
+        if (segmentsOnly) {
+            for (Rule rule : rules) {
+                (rule.dirOnly ? excludedDirNames : excludedNames).add(rule.literalName);
+            }
+        }
+    }
+
+    /**
+     * Compile exclusion patterns and the allowed file extensions (e.g. ".java")
+     */
+    public static PathFilter compile(Collection<String> patterns, Collection<String> extensions) {
+        List<Rule> rules = new ArrayList<>();
+        for (String pattern : patterns) {
+            Rule rule = parse(pattern);
+            if (rule != null) {
+                rules.add(rule);
+            }
+        }
+        return new PathFilter(rules, Set.copyOf(extensions));
+    }
+
+    /**
+     * Parse the contents of an ignore file, one pattern per line
+     */
+    public static List<String> parseIgnoreFile(String content) {
+        List<String> patterns = new ArrayList<>();
+        for (String line : content.split("\\r?\\n")) {
+            String trimmed = line.strip();
+            if (!trimmed.isEmpty() && !trimmed.startsWith("#")) {
+                patterns.add(trimmed);
+            }
+        }
+        return patterns;
+    }
+
+    /**
+     * New filter with additional patterns evaluated after this one's
+     */
+    public PathFilter withOverrides(Collection<String> patterns) {
+        List<Rule> combined = new ArrayList<>(rules);
+        for (String pattern : patterns) {
+            Rule rule = parse(pattern);
+            if (rule != null) {
+                combined.add(rule);
+            }
+        }
+        return new PathFilter(combined, extensions);
+    }
+
+    /**
+     * Whether a repository-relative path passes the extension and exclusion rules
+     */
+    public boolean accepts(String path) {
+        return hasAllowedExtension(path) && !isExcluded(path);
+    }
+
+    public boolean isExcluded(String path) {
+        if (segmentsOnly) {
+            return containsExcludedSegment(path);
+        }
+        // Directories top-down; an excluded one is final
+        int slash = path.indexOf('/');
+        while (slash >= 0) {
+            if (lastMatchExcludes(path.substring(0, slash), true)) {
+                return true;
+            }
+            slash = path.indexOf('/', slash + 1);
+        }
+        return lastMatchExcludes(path, false);
+    }
+
+    /**
+     * Whether the last rule matching a file or directory excludes it
+     */
+    private boolean lastMatchExcludes(String candidate, boolean directory) {
+        for (int i = rules.size() - 1; i >= 0; i--) {
+            Rule rule = rules.get(i);
+            if ((directory || !rule.dirOnly) && rule.matches(candidate)) {
+                return !rule.negated;
+            }
+        }
+        return false;
+    }
+
+    private boolean hasAllowedExtension(String path) {
+        int lastDot = path.lastIndexOf('.');
+        if (lastDot <= 0 || lastDot == path.length() - 1 || path.indexOf('/', lastDot) >= 0) {
+            return false;
+        }
+        return extensions.contains(path.substring(lastDot));
+    }
+
+    private boolean containsExcludedSegment(String path) {
+        int start = 0;
+        while (start <= path.length()) {
+            int slash = path.indexOf('/', start);
+            boolean last = slash < 0;
+            String segment = last ? path.substring(start) : path.substring(start, slash);
+            if (excludedNames.contains(segment) || (!last && excludedDirNames.contains(segment))) {
+                return true;
+            }
+            if (last) {
+                return false;
+            }
+            start = slash + 1;
+        }
+        return false;
+    }
+
+    private static Rule parse(String raw) {
+        String pattern = raw.strip();
+        if (pattern.isEmpty() || pattern.startsWith("#")) {
+            return null;
+        }
+
+        boolean negated = pattern.startsWith("!");
+        if (negated) {
+            pattern = pattern.substring(1);
+        }
+
+        // "dir/**" and "dir/" both mean everything below a directory
+        boolean dirOnly = false;
+        if (pattern.endsWith("/**")) {
+            pattern = pattern.substring(0, pattern.length() - 3);
+            dirOnly = true;
+        } else if (pattern.endsWith("/")) {
+            pattern = pattern.substring(0, pattern.length() - 1);
+            dirOnly = true;
+        }
+
+        boolean anchored = pattern.startsWith("/") || (pattern.indexOf('/') >= 0 && !pattern.startsWith("**/"));
+        if (pattern.startsWith("/")) {
+            pattern = pattern.substring(1);
+        }
+        if (!anchored && pattern.startsWith("**/")) {
+            pattern = pattern.substring(3);
+        }
+        if (pattern.isEmpty()) {
+            return null;
+        }
+
+        if (!anchored && LITERAL_NAME.matcher(pattern).matches()) {
+            return new Rule(negated, dirOnly, pattern, null);
+        }
+
+        String regex = (anchored ? "" : "(?:.*/)?") + globToRegex(pattern);
+        return new Rule(negated, dirOnly, null, Pattern.compile(regex));
+    }
+
+    private static String globToRegex(String glob) {
+        StringBuilder regex = new StringBuilder();
+        int i = 0;
+        while (i < glob.length()) {
+            char c = glob.charAt(i);
+            if (c == '*') {
+                if (glob.startsWith("**/", i)) {
+                    regex.append("(?:.*/)?");
+                    i += 3;
+                    continue;
+                }
+                if (glob.startsWith("**", i)) {
+                    regex.append(".*");
+                    i += 2;
+                    continue;
+                }
+                regex.append("[^/]*");
+            } else if (c == '?') {
+                regex.append("[^/]");
+            } else if (c == '[') {
+                int close = glob.indexOf(']', i + 1);
+                if (close < 0) {
+                    regex.append("\\[");
+                } else {
+                    String body = glob.substring(i + 1, close).replace("\\", "\\\\");
+                    if (body.startsWith("!")) {
+                        body = "^" + body.substring(1);
+                    }
+                    regex.append('[').append(body).append(']');
+                    i = close;
+                }
+            } else if (c == '\\' && i + 1 < glob.length()) {
+                regex.append(Pattern.quote(String.valueOf(glob.charAt(++i))));
+            } else {
+                regex.append(Pattern.quote(String.valueOf(c)));
+            }
+            i++;
+        }
+        return regex.toString();
+    }
+
+    private static class Rule {
+        private final boolean negated;
+        private final boolean dirOnly;
+        private final String literalName;
+        private final Pattern pattern;
+
+        private Rule(boolean negated, boolean dirOnly, String literalName, Pattern pattern) {
+            this.negated = negated;
+            this.dirOnly = dirOnly;
+            this.literalName = literalName;
+            this.pattern = pattern;
+        }
+
+        /**
+         * Whether the rule matches this exact file or directory path; parents are checked by the caller
+         */
+        private boolean matches(String candidate) {
+            if (literalName != null) {
+                int slash = candidate.lastIndexOf('/');
+                return candidate.regionMatches(slash + 1, literalName, 0, literalName.length())
+                        && candidate.length() - slash - 1 == literalName.length();
+            }
+            return pattern.matcher(candidate).matches();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.somdiproy.smartcodereview.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Utility class for deriving stable, non-reversible keys from access tokens
+ */
+public class TokenHasher {
+
+    private static final String ANONYMOUS = "anonymous";
+
+    /**
+     * Hash a token so it can be used as a map key without exposing it
+     */
+    public static String hash(String token) {
+        if (token == null || token.isBlank()) {
+            return ANONYMOUS;
+        }
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hashed = digest.digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hashed);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Short prefix of a token hash that is safe to log
+     * Example: 3f2a9c0d41b7e8a1... -> 3f2a9c0d
+     */
+    public static String label(String tokenHash) {
+        return tokenHash.length() > 8 ? tokenHash.substring(0, 8) : tokenHash;
+    }
+}